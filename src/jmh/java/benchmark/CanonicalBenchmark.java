@@ -0,0 +1,50 @@
+package benchmark;
+
+import model.CanonicalForm;
+import model.Canonicalizer;
+import model.PuzzleGenerator;
+import model.SudokuSolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Canonicalizing a puzzle is only worth it for caching if it costs well below what it saves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CanonicalBenchmark {
+    @Param({"default_field", "very_hard_field", "generated"})
+    String fixture;
+
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+    private final SudokuSolver solver = new SudokuSolver();
+    private int[] digits;
+
+    @Setup
+    public void setUp() {
+        digits = fixture.equals("generated") ? new PuzzleGenerator(new Random(1)).generate() : Fixtures.digits(fixture);
+    }
+
+    @Benchmark
+    public CanonicalForm canonicalize() {
+        return canonicalizer.canonicalize(digits);
+    }
+
+    @Benchmark
+    public int[] solve() {
+        final int[] solution = digits.clone();
+        solver.solve(solution);
+        return solution;
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        return solver.countSolutions(digits, 2);
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import model.FieldLoader;
+import model.HintMode;
+import model.InvalidFieldDataException;
+import model.SudokuField;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CookieBenchmark {
+    @Param({"default_field", "very_hard_field"})
+    String fixture;
+
+    private String text;
+    private SudokuField field;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        text = Fixtures.text(fixture);
+        field = Fixtures.field(fixture);
+        encoded = field.serialize(HintMode.ON);
+    }
+
+    @Benchmark
+    public String encode() {
+        return field.serialize(HintMode.ON);
+    }
+
+    @Benchmark
+    public String encodeWithCandidates() {
+        return field.serialize();
+    }
+
+    @Benchmark
+    public SudokuField decode() {
+        return FieldLoader.deserializeField(encoded);
+    }
+
+    @Benchmark
+    public SudokuField parseText() throws InvalidFieldDataException {
+        return FieldLoader.getFieldFromString(text);
+    }
+}
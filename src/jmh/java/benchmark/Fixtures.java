@@ -0,0 +1,47 @@
+package benchmark;
+
+import model.FieldLoader;
+import model.InvalidFieldDataException;
+import model.SudokuField;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    /**
+     * @param name file name under {@code data/} without the extension, e.g. {@code default_field}
+     */
+    static String text(String name) {
+        try (InputStream is = Objects.requireNonNull(Fixtures.class.getClassLoader()
+                .getResourceAsStream("data/" + name + ".txt"), name)) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot load fixture " + name, e);
+        }
+    }
+
+    /**
+     * @return 81 digits in row-major order, 0 for empty cells
+     */
+    static int[] digits(String name) {
+        try {
+            return FieldLoader.lineToDigits(text(name).replaceAll("\\s+", ""));
+        } catch (InvalidFieldDataException e) {
+            throw new RuntimeException("Invalid fixture " + name, e);
+        }
+    }
+
+    static SudokuField field(String name) {
+        try {
+            return FieldLoader.getFieldFromString(text(name));
+        } catch (InvalidFieldDataException e) {
+            throw new RuntimeException("Invalid fixture " + name, e);
+        }
+    }
+}
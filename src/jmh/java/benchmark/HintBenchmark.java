@@ -0,0 +1,43 @@
+package benchmark;
+
+import model.HintCache;
+import model.HintMode;
+import model.SudokuField;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HintBenchmark {
+    @Param({"default_field", "very_hard_field"})
+    String fixture;
+
+    @Param({"OFF", "ON", "SMART", "ADVANCED", "MANUAL"})
+    HintMode mode;
+
+    private SudokuField field;
+    private final HintCache cache = new HintCache(16, 30);
+
+    @Setup
+    public void setUp() {
+        field = Fixtures.field(fixture);
+        field.activateHints();
+    }
+
+    @Benchmark
+    public SudokuField generateHints() {
+        field.generateHints(mode);
+        return field;
+    }
+
+    @Benchmark
+    public SudokuField generateCachedHints() {
+        cache.generateHints(field, mode);
+        return field;
+    }
+}
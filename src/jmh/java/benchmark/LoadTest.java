@@ -0,0 +1,127 @@
+package benchmark;
+
+import metrics.LatencyHistogram;
+import model.HintMode;
+import model.SudokuField;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads a whole server with page requests, once per executor mode, and prints the throughput and
+ * latency percentiles of each. Run as {@code LoadTest [seconds] [clients] [executor...]}; by default
+ * 20 seconds of 64 clients against "platform", then "virtual".
+ * <p>
+ * Every server runs in a JVM of its own, started from this one's classpath, with the Java found
+ * under system property {@code load.java.home} or else this one's. It has to be 21 or later for
+ * "virtual" to get virtual threads, it falls back to platform threads otherwise.
+ */
+public final class LoadTest {
+    private static final int PORT = 8190;
+    private static final URI PAGE = URI.create("http://localhost:" + PORT + "/");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        final int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        final String[] executors = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : new String[]{"platform", "virtual"};
+
+        final SudokuField field = Fixtures.field("default_field");
+        field.activateHints();
+        final String cookies = "field=" + field.serialize() + "; hint=" + HintMode.SMART.name();
+
+        for (String executor : executors) {
+            final Process server = startServer(executor);
+            try {
+                awaitServer();
+                load(cookies, clients, Math.max(1, seconds / 4));           // Warm-up
+                final Result result = load(cookies, clients, seconds);
+                System.out.printf("%-10s %9.0f req/s   p50 %7.2f ms   p99 %7.2f ms   p99.9 %7.2f ms   errors %d%n", executor,
+                        result.requests / (double) seconds, millis(result.latency.valueAt(0.5)), millis(result.latency.valueAt(0.99)),
+                        millis(result.latency.valueAt(0.999)), result.errors);
+            } finally {
+                server.destroy();
+                server.waitFor();
+            }
+        }
+    }
+
+    private static Process startServer(String executor) throws IOException {
+        final String javaHome = System.getProperty("load.java.home", System.getProperty("java.home"));
+        final List<String> command = new ArrayList<>(Arrays.asList(
+                javaHome + File.separator + "bin" + File.separator + "java",
+                "-Dport=" + PORT, "-Dexecutor=" + executor, "-Daccess.log=off",
+                "-cp", System.getProperty("java.class.path"), "LocalSudokuServer"));
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    private static void awaitServer() throws Exception {
+        final HttpClient client = HttpClient.newHttpClient();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) try {
+            client.send(HttpRequest.newBuilder(PAGE).build(), HttpResponse.BodyHandlers.discarding());
+            return;
+        } catch (ConnectException e) {
+            if (System.nanoTime() > deadline) throw e;
+            Thread.sleep(100);
+        }
+    }
+
+    private static Result load(String cookies, int clients, int seconds) throws InterruptedException {
+        final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        final HttpRequest request = HttpRequest.newBuilder(PAGE).header("Cookie", cookies).build();
+        final Result result = new Result();
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        final Thread[] threads = new Thread[clients];
+        for (int i = 0; i < clients; i++) {
+            threads[i] = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    final long start = System.nanoTime();
+                    try {
+                        final HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) errors.increment();
+                    } catch (IOException e) {
+                        errors.increment();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    result.latency.recordSince(start);
+                    requests.increment();
+                }
+            }, "load-client-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        result.requests = requests.sum();
+        result.errors = errors.sum();
+        return result;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static class Result {
+        final LatencyHistogram latency = new LatencyHistogram();
+        long requests;
+        long errors;
+    }
+}
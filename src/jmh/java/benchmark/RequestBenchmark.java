@@ -0,0 +1,81 @@
+package benchmark;
+
+import model.HintMode;
+import model.SudokuField;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A complete POST of a move through {@code StandardRequestProcessor.processNormalRequest}: cookie decode,
+ * move, hints, rendering and cookie encode. The processor lives in the unnamed package, so it is reached
+ * reflectively once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBenchmark {
+    @Param({"default_field", "very_hard_field"})
+    String fixture;
+
+    @Param({"OFF", "ON", "SMART"})
+    HintMode mode;
+
+    private MethodHandle newProcessor;
+    private MethodHandle processNormalRequest;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setUp(Blackhole bh) throws ReflectiveOperationException {
+        final Class<?> processorClass = Class.forName("StandardRequestProcessor");
+        final Constructor<?> ctor = processorClass.getDeclaredConstructor(HttpServletRequest.class, HttpServletResponse.class);
+        ctor.setAccessible(true);
+        final Method process = processorClass.getDeclaredMethod("processNormalRequest");
+        process.setAccessible(true);
+        newProcessor = MethodHandles.lookup().unreflectConstructor(ctor);
+        processNormalRequest = MethodHandles.lookup().unreflect(process);
+
+        final SudokuField field = Fixtures.field(fixture);
+        field.activateHints();
+        final Map<String, String> parameters = new HashMap<>();
+        parameters.put("cell", "1");                // Empty in both fixtures
+        parameters.put("value", "5");
+        parameters.put("clr", "2");
+
+        request = ServletMocks.request("POST", parameters,
+                new Cookie("field", field.serialize()), new Cookie("hint", mode.name()));
+        response = ServletMocks.response(new OutputStream() {
+            @Override
+            public void write(int b) {
+                bh.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bh.consume(b);
+            }
+        });
+    }
+
+    @Benchmark
+    public Object processNormalRequest() throws Throwable {
+        final Object processor = newProcessor.invoke(request, response);
+        processNormalRequest.invoke(processor);
+        return processor;
+    }
+}
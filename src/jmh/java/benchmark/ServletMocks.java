@@ -0,0 +1,86 @@
+package benchmark;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Just enough of the servlet API to drive a request processor without a container.
+ * Unhandled methods return {@code null}, zero or false.
+ */
+final class ServletMocks {
+    private ServletMocks() {
+    }
+
+    static HttpServletRequest request(String method, Map<String, String> parameters, Cookie... cookies) {
+        return proxy(HttpServletRequest.class, (p, m, args) -> {
+            switch (m.getName()) {
+                case "getMethod":
+                    return method;
+                case "getParameter":
+                    return parameters.get((String) args[0]);
+                case "getCookies":
+                    return cookies.length == 0 ? null : cookies.clone();
+                default:
+                    return defaultValue(m.getReturnType());
+            }
+        });
+    }
+
+    static HttpServletResponse response(OutputStream sink) {
+        final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                sink.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                sink.write(b, off, len);
+            }
+        };
+        return proxy(HttpServletResponse.class, (p, m, args) -> {
+            switch (m.getName()) {
+                case "getOutputStream":
+                    return out;
+                case "getWriter":
+                    return new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                case "getCharacterEncoding":
+                    return StandardCharsets.UTF_8.name();
+                default:
+                    return defaultValue(m.getReturnType());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ServletMocks.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+    }
+}
@@ -0,0 +1,72 @@
+package benchmark;
+
+import model.HintMode;
+import model.SudokuField;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import template.TemplateProcessor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateBenchmark {
+    @Param({"default_field", "very_hard_field"})
+    String fixture;
+
+    @Param({"OFF", "SMART"})
+    HintMode mode;
+
+    @Param({"false", "true"})
+    boolean gzip;
+
+    private SudokuField field;
+    private OutputStream sink;
+
+    /**
+     * Bytes on the wire, reported as a rate next to pages per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Wire {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp(Blackhole bh, Wire wire) {
+        sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bh.consume(b);
+                wire.bytes++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bh.consume(b);
+                wire.bytes += len;
+            }
+        };
+        field = Fixtures.field(fixture);
+        field.activateHints();
+        field.generateHints(mode);
+    }
+
+    @Benchmark
+    public void process() throws IOException {
+        final TemplateProcessor page = TemplateProcessor.with(field, mode, 1);
+        if (gzip) page.withCompression(0);
+        page.writeTo(sink);
+    }
+}
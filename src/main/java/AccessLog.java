@@ -0,0 +1,247 @@
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.RequestLog;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logs every request the server answers, static files included, in the NCSA format with the time
+ * taken added. Request threads only copy a few fields into a preallocated slot of a ring buffer,
+ * with no lock and no allocation; a single background thread formats and writes the records out.
+ * When the ring is full, a record is dropped and counted rather than waited for, so logging never
+ * holds a request up.
+ * <p>
+ * The log goes to standard output, or to a file that is rotated once it reaches its size limit.
+ */
+class AccessLog extends AbstractLifeCycle implements RequestLog {
+    private static final int TEXT_BYTES = 480;                      // Remote address and request line, cut short beyond this
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.US);
+
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;        // Of a slot: its position when free, its position + 1 when filled
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();                // Next position to claim
+    private long head;                                              // Next position to write out, writer thread only
+
+    private final int sampleOneIn;
+    private final Path file;                        // Null for standard output
+    private final long maxFileBytes;
+    private final int keptFiles;
+
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * @param capacity    records the ring holds, rounded up to a power of 2
+     * @param sampleOneIn logs one request in this many, picked at random; all server errors are logged
+     * @param file        where to write, null for standard output
+     */
+    AccessLog(int capacity, int sampleOneIn, Path file, long maxFileBytes, int keptFiles) {
+        final int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        slots = new Slot[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+        this.sampleOneIn = sampleOneIn;
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.keptFiles = keptFiles;
+    }
+
+    /**
+     * @return null if turned off by setting "access.log" to "off"; "-", the default, is standard output
+     */
+    static AccessLog fromConfig() {
+        final String target = Config.string("access.log", "-");
+        if (target.equals("off")) return null;
+        final AccessLog log = new AccessLog(Config.integer("access.log.buffer", 8192), Config.integer("access.log.sample", 1),
+                target.equals("-") ? null : Paths.get(target),
+                Config.integer("access.log.max.mb", 64) * 1024L * 1024L, Config.integer("access.log.files", 5));
+        ServerMetrics.REGISTRY.counter("sudoku_access_log_records_total", "Requests put into the access log", "", log::getLogged);
+        ServerMetrics.REGISTRY.counter("sudoku_access_log_dropped_total", "Requests not logged for a full buffer", "", log::getDropped);
+        return log;
+    }
+
+    long getLogged() {
+        return logged.sum();
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void log(Request request, Response response) {
+        final int status = response.getCommittedMetaData() == null ? response.getStatus() : response.getCommittedMetaData().getStatus();
+        if (sampleOneIn > 1 && status < 500 && ThreadLocalRandom.current().nextInt(sampleOneIn) != 0) return;
+
+        long position = tail.get();
+        while (true) {
+            final long free = sequences.get((int) position & mask) - position;
+            if (free == 0 && tail.compareAndSet(position, position + 1)) break;
+            if (free < 0) {                         // Still holding a record a lap behind
+                dropped.increment();
+                return;
+            }
+            position = tail.get();
+        }
+
+        final Slot slot = slots[(int) position & mask];
+        slot.time = request.getTimeStamp();
+        slot.millis = System.currentTimeMillis() - request.getTimeStamp();
+        slot.status = status;
+        slot.bytes = response.getHttpChannel().getBytesWritten();
+        slot.length = 0;
+        slot.append(request.getRemoteAddr());
+        slot.remoteLength = slot.length;
+        slot.append(request.getMethod());
+        slot.append(" ");
+        slot.append(request.getOriginalURI());
+        slot.append(" ");
+        slot.append(request.getProtocol());
+        sequences.lazySet((int) position & mask, position + 1);
+        logged.increment();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        running = true;
+        writer = new Thread(this::drain, "access-log");
+        writer.setDaemon(true);
+        writer.start();
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        super.doStop();
+    }
+
+    private void drain() {
+        final byte[] line = new byte[TEXT_BYTES + 128];
+        OutputStream out = null;
+        long fileBytes = 0;
+        boolean unflushed = false;
+        try {
+            out = open();
+            if (file != null) fileBytes = Files.size(file);
+            while (true) {
+                final boolean stopping = !running;          // Read first, so that nothing logged before is left behind
+                final int index = (int) head & mask;
+                if (sequences.get(index) != head + 1) {
+                    if (unflushed) out.flush();
+                    unflushed = false;
+                    if (stopping) break;
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+
+                final int length = slots[index].format(line);
+                sequences.lazySet(index, head + mask + 1);
+                head++;
+
+                if (file != null && fileBytes + length > maxFileBytes && fileBytes > 0) {
+                    out.close();
+                    rotate();
+                    out = open();
+                    fileBytes = 0;
+                }
+                out.write(line, 0, length);
+                fileBytes += length;
+                unflushed = true;
+            }
+        } catch (IOException e) {
+            System.err.println("Access log stopped: " + e);
+        } finally {
+            if (out != null && file != null) try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private OutputStream open() throws IOException {
+        if (file == null) return System.out;
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        return new BufferedOutputStream(new FileOutputStream(file.toFile(), true), 64 * 1024);
+    }
+
+    // access.log becomes access.log.1, which becomes access.log.2, and so on; the oldest is dropped
+    private void rotate() throws IOException {
+        Files.deleteIfExists(rotated(keptFiles));
+        for (int i = keptFiles - 1; i >= 1; i--)
+            if (Files.exists(rotated(i))) Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        if (keptFiles > 0)
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        else
+            Files.delete(file);
+    }
+
+    private Path rotated(int generation) {
+        return file.resolveSibling(file.getFileName() + "." + generation);
+    }
+
+    private static class Slot {
+        long time;                  // Epoch millis the request came in
+        long millis;
+        int status;
+        long bytes;
+        final byte[] text = new byte[TEXT_BYTES];   // Remote address, then request line
+        int remoteLength;
+        int length;
+
+        void append(String value) {
+            if (value == null) value = "-";
+            for (int i = 0; i < value.length() && length < TEXT_BYTES; i++) {
+                final char c = value.charAt(i);
+                text[length++] = c < ' ' || c > '~' || c == '"' ? (byte) '?' : (byte) c;
+            }
+        }
+
+        // 127.0.0.1 - - [18/Oct/2026:13:03:22 +0000] "GET / HTTP/1.1" 200 6054 12
+        int format(byte[] line) {
+            int at = copy(text, 0, remoteLength, line, 0);
+            final String date = " - - [" + TIME_FORMAT.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC)) + "] \"";
+            at = copy(date.getBytes(StandardCharsets.US_ASCII), 0, date.length(), line, at);
+            at = copy(text, remoteLength, length - remoteLength, line, at);
+            final String end = "\" " + status + ' ' + bytes + ' ' + millis + '\n';
+            return copy(end.getBytes(StandardCharsets.US_ASCII), 0, end.length(), line, at);
+        }
+
+        private static int copy(byte[] from, int start, int count, byte[] to, int at) {
+            System.arraycopy(from, start, to, at, count);
+            return at + count;
+        }
+    }
+}
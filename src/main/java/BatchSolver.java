@@ -0,0 +1,198 @@
+import cache.ObjectPool;
+import lombok.RequiredArgsConstructor;
+import model.FieldLoader;
+import model.InvalidFieldDataException;
+import model.SudokuSolver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Solves newline-delimited puzzles of 81 characters each, one per line, on a fork-join pool shared
+ * by all batches. Results are written in the order they become ready, one line per puzzle:
+ * <pre>
+ * &lt;line number&gt; solved &lt;81 digits&gt;
+ * &lt;line number&gt; unsolvable
+ * &lt;line number&gt; invalid &lt;reason&gt;
+ * &lt;line number&gt; undetermined
+ * &lt;line number&gt; failed &lt;reason&gt;
+ * </pre>
+ * followed by a summary line starting with '#'. A puzzle is undetermined if the search for a solution
+ * visits more than its node budget, so that no crafted puzzle holds a thread of the shared pool for long;
+ * failed stands for an error of the server's own. Blank lines are skipped, but still numbered.
+ * A line longer than MAX_LINE is reported invalid without being kept, however long it goes on.
+ * Input is only read while fewer than MAX_IN_FLIGHT puzzles are waiting to be solved or written,
+ * so neither side of the batch is ever buffered whole.
+ */
+class BatchSolver {
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private static final int MAX_IN_FLIGHT = 64 * POOL.getParallelism();
+    private static final int MAX_LINE = 81 + 16;                // Room for surrounding whitespace and a CR
+    private static final String TOO_LONG = "Line longer than " + MAX_LINE + " characters";
+    private static final ObjectPool<SudokuSolver> SOLVERS = new ObjectPool<>(POOL.getParallelism(), SudokuSolver::new);
+
+    private final long maxNodes;
+    private final BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+    private final char[] lineBuffer = new char[MAX_LINE];
+    private int inFlight;
+    private int solved;
+    private int unsolvable;
+    private int invalid;
+    private int undetermined;
+    private int failed;
+
+    /**
+     * With a node budget per puzzle from setting "batch.nodes"
+     */
+    BatchSolver() {
+        this(Config.integer("batch.nodes", 100_000));
+    }
+
+    BatchSolver(long maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    void run(BufferedReader in, Writer out) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            int lineNumber = 0;
+            for (String line; (line = readLine(in)) != null; ) {
+                lineNumber++;
+                if (line == TOO_LONG) {
+                    inFlight++;                             // Taken off again by write
+                    write(new Result(lineNumber, Status.INVALID, TOO_LONG), out);
+                    continue;
+                }
+                line = line.trim();
+                if (line.isEmpty()) continue;
+
+                while (inFlight >= MAX_IN_FLIGHT) awaitResult(out);
+                submit(lineNumber, line);
+                writeReady(out);
+                if (!in.ready()) out.flush();           // Reading on would block, send what we have
+            }
+            while (inFlight > 0) awaitResult(out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch interrupted");
+        }
+
+        final long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        final int total = solved + unsolvable + invalid + undetermined + failed;
+        out.write(String.format("# puzzles=%d solved=%d unsolvable=%d invalid=%d undetermined=%d failed=%d time_ms=%d puzzles_per_s=%d\n",
+                total, solved, unsolvable, invalid, undetermined, failed, elapsedMillis, total * 1000L / elapsedMillis));
+        out.flush();
+    }
+
+    /**
+     * @return the next line without its terminator, TOO_LONG itself for a line that does not fit, null at the end
+     */
+    private String readLine(BufferedReader in) throws IOException {
+        int length = 0;
+        int c;
+        while ((c = in.read()) >= 0 && c != '\n') {
+            if (length == MAX_LINE) {
+                while ((c = in.read()) >= 0 && c != '\n') ;     // Skip the rest of it
+                return TOO_LONG;
+            }
+            lineBuffer[length++] = (char) c;
+        }
+        return c < 0 && length == 0 ? null : new String(lineBuffer, 0, length);
+    }
+
+    private void submit(int lineNumber, String line) {
+        inFlight++;
+        POOL.execute(() -> {
+            Result result = null;
+            try {
+                result = solve(lineNumber, line);
+            } catch (RuntimeException e) {
+                result = new Result(lineNumber, Status.FAILED, String.valueOf(e));
+            } finally {                             // Whatever happens, run() waits for a result of every line
+                results.add(result != null ? result : new Result(lineNumber, Status.FAILED, null));
+            }
+        });
+    }
+
+    private Result solve(int lineNumber, String line) {
+        final int[] digits;
+        try {
+            digits = FieldLoader.lineToDigits(line);
+        } catch (InvalidFieldDataException | RuntimeException e) {
+            return new Result(lineNumber, Status.INVALID, e.getMessage());
+        }
+        final SudokuSolver solver = SOLVERS.take();
+        final int found;
+        try {
+            found = solver.solve(digits, maxNodes);
+        } finally {
+            SOLVERS.release(solver);
+        }
+        if (found < 0) return new Result(lineNumber, Status.UNDETERMINED, null);
+        if (found == 0) return new Result(lineNumber, Status.UNSOLVABLE, null);
+
+        final char[] solution = new char[81];
+        for (int i = 0; i < 81; i++)
+            solution[i] = (char) ('0' + digits[i]);
+        return new Result(lineNumber, Status.SOLVED, new String(solution));
+    }
+
+    private void awaitResult(Writer out) throws IOException, InterruptedException {
+        Result result = results.poll();
+        if (result == null) {
+            out.flush();
+            result = results.take();
+        }
+        write(result, out);
+    }
+
+    private void writeReady(Writer out) throws IOException {
+        for (Result result; (result = results.poll()) != null; )
+            write(result, out);
+    }
+
+    private void write(Result result, Writer out) throws IOException {
+        inFlight--;
+        switch (result.status) {
+            case SOLVED:
+                solved++;
+                break;
+            case UNSOLVABLE:
+                unsolvable++;
+                break;
+            case INVALID:
+                invalid++;
+                break;
+            case UNDETERMINED:
+                undetermined++;
+                break;
+            case FAILED:
+                failed++;
+        }
+        out.write(String.valueOf(result.lineNumber));
+        out.write(result.status.label);
+        if (result.details != null) {
+            out.write(' ');
+            out.write(result.details);
+        }
+        out.write('\n');
+    }
+
+    private enum Status {
+        SOLVED, UNSOLVABLE, INVALID, UNDETERMINED, FAILED;
+
+        final String label = " " + name().toLowerCase();
+    }
+
+    @RequiredArgsConstructor
+    private static class Result {
+        final int lineNumber;
+        final Status status;
+        final String details;
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the CPU-heavy part of requests (solving and checking uploads) on a few threads of its own,
+ * so that however many of them come in at once, the request threads stay free for page loads.
+ * Work beyond what the threads and a bounded queue hold is turned down at once rather than queued.
+ */
+class ComputePool {
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+
+    private static class Holder {
+        static final ComputePool SHARED = new ComputePool(
+                Config.integer("compute.threads", Runtime.getRuntime().availableProcessors()), Config.integer("compute.queue", 64));
+
+        static {
+            ServerMetrics.REGISTRY.gauge("sudoku_compute_queued", "Expensive requests waiting for a compute thread", "", SHARED::queued);
+            ServerMetrics.REGISTRY.gauge("sudoku_compute_running", "Expensive requests being worked on", "", SHARED::running);
+            ServerMetrics.REGISTRY.counter("sudoku_compute_rejected_total", "Expensive requests turned down for a full queue", "", SHARED::getRejected);
+        }
+    }
+
+    /**
+     * @return the pool of the server, sized by settings "compute.threads" and "compute.queue"
+     */
+    static ComputePool shared() {
+        return Holder.SHARED;
+    }
+
+    ComputePool(int threads, int queueSize) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), r -> {
+            Thread thread = new Thread(r, "compute-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return false if the queue is full, and the task will not run
+     */
+    boolean tryExecute(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return false;
+        }
+    }
+
+    long queued() {
+        return executor.getQueue().size();
+    }
+
+    long running() {
+        return executor.getActiveCount();
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+import java.util.Optional;
+
+/**
+ * Server settings. Each one is read from an environment variable, or failing that from a JVM
+ * property: setting "sessions.max" comes from SESSIONS_MAX or -Dsessions.max.
+ */
+final class Config {
+    private Config() {
+    }
+
+    static String string(String name, String defaultValue) {
+        return Optional.ofNullable(System.getenv(name.toUpperCase().replace('.', '_')))
+                .orElseGet(() -> System.getProperty(name, defaultValue));
+    }
+
+    static int integer(String name, int defaultValue) {
+        return Integer.parseInt(string(name, String.valueOf(defaultValue)));
+    }
+
+    static boolean bool(String name, boolean defaultValue) {
+        return Boolean.parseBoolean(string(name, String.valueOf(defaultValue)));
+    }
+}
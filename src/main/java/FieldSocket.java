@@ -0,0 +1,88 @@
+import model.HintCache;
+import model.HintMode;
+import model.SudokuField;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Plays a field over a WebSocket. The client sends moves of 3 bytes: cell, digit (0 clears) and
+ * color code. After each move the server sends the cells that changed, 4 bytes each: the cell
+ * index and its 3-byte state as in /api/field (see SudokuCell.wireValue); right after connecting it sends all of
+ * them. Where fields are kept in cookies, each change is followed by a text message with the new
+ * cookie value, for the client to store, since a WebSocket cannot set cookies.
+ */
+class FieldSocket extends WebSocketAdapter {
+    private static final int MOVE_LENGTH = 3;
+    private static final int MAX_COLOR = 4;
+
+    private final SudokuField field;
+    private final HintMode hintMode;
+    private final HintCache hints;
+    private final Consumer<SudokuField> store;          // null if the client keeps the field in a cookie
+    private byte[] sent;                                // The state of the client, null before the first update
+
+    FieldSocket(SudokuField field, HintMode hintMode, HintCache hints, Consumer<SudokuField> store) {
+        this.field = field;
+        this.hintMode = hintMode;
+        this.hints = hints;
+        this.store = store;
+    }
+
+    @Override
+    public void onWebSocketConnect(Session session) {
+        super.onWebSocketConnect(session);
+        hints.generateHints(field, hintMode);
+        sendChanges();
+    }
+
+    @Override
+    public void onWebSocketBinary(byte[] payload, int offset, int length) {
+        if (length != MOVE_LENGTH || payload[offset + 2] < 1 || payload[offset + 2] > MAX_COLOR) {
+            getSession().close(StatusCode.BAD_DATA, "Moves are 3 bytes: cell, digit, color 1.." + MAX_COLOR);
+            return;
+        }
+        field.setCellValue(payload[offset] & 0xFF, payload[offset + 1], payload[offset + 2]);
+        hints.generateHints(field, hintMode);
+        if (sendChanges()) {
+            if (store != null) store.accept(field.copy());
+            else sendText(field.serialize(hintMode));
+        }
+    }
+
+    /**
+     * @return false if nothing changed
+     */
+    private boolean sendChanges() {
+        final byte[] state = field.toWireFormat();
+        final ByteBuffer changes = ByteBuffer.allocate(81 * 4);
+        for (int i = 0; i < 81; i++) {
+            final int at = i * 3;
+            if (sent != null && state[at] == sent[at] && state[at + 1] == sent[at + 1] && state[at + 2] == sent[at + 2])
+                continue;
+            changes.put((byte) i).put(state, at, 3);
+        }
+        sent = state;
+        if (changes.position() == 0) return false;
+
+        changes.flip();
+        try {
+            getRemote().sendBytes(changes);
+        } catch (IOException e) {
+            getSession().close(StatusCode.SERVER_ERROR, e.getMessage());
+        }
+        return true;
+    }
+
+    private void sendText(String text) {
+        try {
+            getRemote().sendString(text);
+        } catch (IOException e) {
+            getSession().close(StatusCode.SERVER_ERROR, e.getMessage());
+        }
+    }
+}
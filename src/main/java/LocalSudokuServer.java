@@ -3,7 +3,10 @@ import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.HandlerList;
 import org.eclipse.jetty.server.handler.HandlerWrapper;
-import org.eclipse.jetty.server.handler.ResourceHandler;
+import org.eclipse.jetty.websocket.server.WebSocketHandler;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+
+import template.TemplateProcessor;
 
 import javax.servlet.MultipartConfigElement;
 import javax.servlet.ServletException;
@@ -11,17 +14,25 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class LocalSudokuServer extends Thread {
-    private static final int PORT = Integer.parseInt(
-                    Optional.ofNullable(System.getenv("PORT"))
-                    .orElseGet(() -> System.getProperty("port", "8080")));
+    private static final int PORT = Config.integer("port", 8080);
+    private static final String FIELD_SOCKET_PATH = "/ws/field";
 
     int getPort() {
         return PORT;
     }
 
-    final Server server = new Server(getPort());
+    final Server server;
+
+    public LocalSudokuServer() {
+        this(ServerConfig.fromConfig());
+    }
+
+    LocalSudokuServer(ServerConfig config) {
+        server = config.createServer(getPort());
+    }
 
     @Override
     public void run() {
@@ -29,7 +40,13 @@ public class LocalSudokuServer extends Thread {
             HandlerList hList = new HandlerList();
             hList.setHandlers(createHandlers());
             server.setHandler(hList);
+            final AccessLog accessLog = AccessLog.fromConfig();
+            if (accessLog != null) server.setRequestLog(accessLog);        // Started and stopped along with the server
+            TemplateProcessor.setCompressionLevel(Config.integer("gzip.level", 6));
             server.start();
+            ServerMetrics.REGISTRY.gauge("sudoku_threads", "Threads of the server", "", server.getThreadPool()::getThreads);
+            ServerMetrics.REGISTRY.gauge("sudoku_threads_idle", "Threads of the server waiting for work", "", server.getThreadPool()::getIdleThreads);
+            PuzzlePool.shared();            // Start generating before the first game is requested
             System.out.println("Running server on port " + PORT);
         } catch (Exception e) {
             System.out.println("Error running server");
@@ -41,17 +58,41 @@ public class LocalSudokuServer extends Thread {
     private final MultipartConfigElement MPCE = new MultipartConfigElement(TMP_DIR, 1024, -1L, Integer.MAX_VALUE);
 
     Handler[] createHandlers() {
-        ResourceHandler res = new ResourceHandler();
-        @SuppressWarnings("ConstantConditions")
-        String webDir = this.getClass().getClassLoader().getResource("WEB-INF").toExternalForm();
-        res.setResourceBase(webDir);
-        res.setDirAllowed(true);
+        Handler assets = new StaticAssetHandler("WEB-INF");     // Ahead of the rest, as it only takes known files
 
         Handler main = new ParsingHandler(server);
 
         Handler multipartFixer = multipartSafeWrapper(main);
 
-        return new Handler[]{multipartFixer, res};
+        return new Handler[]{assets, fieldSockets(multipartFixer)};
+    }
+
+    // Takes over WebSocket upgrades of /ws/field, passes everything else on
+    Handler fieldSockets(Handler next) {
+        WebSocketHandler sockets = new WebSocketHandler() {
+            @Override
+            public void configure(WebSocketServletFactory factory) {
+                factory.getPolicy().setIdleTimeout(TimeUnit.MINUTES.toMillis(Config.integer("ws.idle.minutes", 30)));
+                factory.setCreator((req, resp) -> {
+                    try {
+                        if (!req.getRequestURI().getPath().equals(FIELD_SOCKET_PATH)) {
+                            resp.sendError(HttpServletResponse.SC_NOT_FOUND, "No WebSocket at " + req.getRequestURI().getPath());
+                            return null;
+                        }
+                        if (!RequestHeaders.sameOrigin(req.getHttpServletRequest())) {     // A page of another site, riding on our cookies
+                            resp.sendError(HttpServletResponse.SC_FORBIDDEN, "Cross-origin WebSocket");
+                            return null;
+                        }
+                    } catch (IOException ignored) {
+                        return null;
+                    }
+                    // Only reads the request, no response to give
+                    return new StandardRequestProcessor(req.getHttpServletRequest(), null).openFieldSocket();
+                });
+            }
+        };
+        sockets.setHandler(next);
+        return sockets;
     }
 
     Handler multipartSafeWrapper(Handler main) {
@@ -4,25 +4,45 @@ import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.function.BiFunction;
-import java.util.stream.Stream;
 
 @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 class ParsingHandler extends AbstractHandler {
+    private static final String BUSY_RETRY_SECONDS = "2";
+
     private final Server serverInstance;
     private final BiFunction<HttpServletRequest, HttpServletResponse, RequestProcessor> requestProcessorFactory;
+    private final ComputePool computePool;
 
     ParsingHandler(Server serverInstance) {
         this(serverInstance, StandardRequestProcessor::new);
     }
 
+    ParsingHandler(Server serverInstance, BiFunction<HttpServletRequest, HttpServletResponse, RequestProcessor> requestProcessorFactory) {
+        this(serverInstance, requestProcessorFactory, ComputePool.shared());
+    }
+
     @Override
     public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
-        System.out.printf("Processing %s: [%s]%n", request.getMethod(), target);
+        final long start = System.nanoTime();
+        boolean offloaded = false;
+        try {
+            offloaded = route(target, start, request, response);
+        } finally {
+            if (!offloaded) ServerMetrics.route(target).recordSince(start);
+        }
+        baseRequest.setHandled(true);
+    }
+
+    /**
+     * @return true if the request was passed on to the compute pool, and completes there
+     */
+    private boolean route(String target, long start, HttpServletRequest request, HttpServletResponse response) throws IOException {
         RequestProcessor proc = requestProcessorFactory.apply(request, response);
 
         switch (target) {
@@ -39,23 +59,63 @@ class ParsingHandler extends AbstractHandler {
                 break;
 
             case "/load":
-                proc.loadField();
+                return offload(target, start, request, response, proc::loadField);
+
+            case "/solve":
+                return offload(target, start, request, response, proc::solveField);
+
+            case "/new":
+                proc.newField();
+                break;
+
+            case "/api/field":
+                proc.processApiRequest();
+                break;
+
+            case "/batch":                          // Solved on a pool of its own, while this thread streams
+                proc.solveBatch();
+                break;
+
+            case "/metrics":
+                proc.writeMetrics();
                 break;
 
             case "/terminate":
                 proc.killServer(serverInstance);
                 break;
             default:
-                if (mustPassToFileServer(target)) return;
                 response.sendError(HttpServletResponse.SC_NOT_FOUND);
         }
-        baseRequest.setHandled(true);
+        return false;
     }
 
-    private static boolean mustPassToFileServer(String target) {
-        Stream<String> knownFileExt = Stream.of(".htm", ".html", ".css", ".js", ".gif", ".png", ".jpg");
-        final String s = target.toLowerCase();
-        return knownFileExt.anyMatch(s::endsWith);
+    // Suspends the request, to be taken up and completed by a compute thread; or turns it down
+    // right away if there are too many waiting already
+    private boolean offload(String target, long start, HttpServletRequest request, HttpServletResponse response, Route route) throws IOException {
+        final AsyncContext async = request.startAsync();
+        async.setTimeout(0);                        // Done when the work is, which does not hang
+        final boolean accepted = computePool.tryExecute(() -> {
+            try {
+                route.run();
+            } catch (IOException | RuntimeException e) {
+                if (!response.isCommitted()) try {
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+                } catch (IOException ignored) {
+                }
+            } finally {
+                ServerMetrics.route(target).recordSince(start);
+                async.complete();
+            }
+        });
+        if (!accepted) {
+            response.setHeader("Retry-After", BUSY_RETRY_SECONDS);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too busy, try again later");
+            async.complete();
+        }
+        return accepted;
     }
 
+    private interface Route {
+        void run() throws IOException;
+    }
 }
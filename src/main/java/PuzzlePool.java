@@ -0,0 +1,84 @@
+import model.Difficulty;
+import model.PuzzleGenerator;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a bounded pool of generated puzzles per difficulty, so that a new game is a queue poll.
+ * Generators run on their own few low-priority daemon threads, never on request threads, and
+ * rest while every pool is full. A puzzle of a difficulty whose pool is full is dropped.
+ */
+class PuzzlePool {
+    private final Map<Difficulty, BlockingQueue<int[]>> pools = new EnumMap<>(Difficulty.class);
+    private final ExecutorService generators;
+
+    private static class Holder {
+        static final PuzzlePool SHARED = new PuzzlePool(Config.integer("puzzles.pool", 20), Config.integer("puzzles.threads", 1));
+    }
+
+    /**
+     * @return the pool of the server, which starts filling up on first use
+     */
+    static PuzzlePool shared() {
+        return Holder.SHARED;
+    }
+
+    PuzzlePool(int poolSize, int threads) {
+        for (Difficulty difficulty : Difficulty.values())
+            pools.put(difficulty, new ArrayBlockingQueue<>(poolSize));
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        generators = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "puzzle-generator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        for (int i = 0; i < threads; i++)
+            generators.execute(this::produce);
+    }
+
+    /**
+     * @return 81 digits in row-major order, 0 for empty cells, or null if none is ready; never waits for one
+     */
+    int[] take(Difficulty difficulty) {
+        final int[] puzzle = pools.get(difficulty).poll();
+        if (puzzle != null) synchronized (this) {
+            notifyAll();
+        }
+        return puzzle;
+    }
+
+    int available(Difficulty difficulty) {
+        return pools.get(difficulty).size();
+    }
+
+    void shutdown() {
+        generators.shutdownNow();
+    }
+
+    private void produce() {
+        final PuzzleGenerator generator = new PuzzleGenerator(new Random());
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                awaitFreeSpace();
+                final int[] puzzle = generator.generate();
+                pools.get(generator.rate(puzzle)).offer(puzzle);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void awaitFreeSpace() throws InterruptedException {
+        while (pools.values().stream().allMatch(pool -> pool.remainingCapacity() == 0))
+            wait();
+    }
+}
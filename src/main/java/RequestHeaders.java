@@ -0,0 +1,72 @@
+import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Conditional requests, content negotiation and origin checks.
+ */
+final class RequestHeaders {
+    private RequestHeaders() {
+    }
+
+    /**
+     * @return true if the request's If-None-Match lists the tag, or "*"
+     */
+    static boolean etagMatches(HttpServletRequest request, String etag) {
+        final String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            final String tag = candidate.trim();
+            if (tag.equals(etag) || tag.equals("*")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the tag of the gzipped representation of what the given strong tag stands for
+     */
+    static String gzipVariant(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    static boolean acceptsGzip(HttpServletRequest request) {
+        return acceptsGzip(request.getHeader("Accept-Encoding"));
+    }
+
+    // "gzip" listed without q=0, or else "*" without q=0; an explicit gzip entry wins over "*" (RFC 7231 5.3.4)
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Boolean gzip = null;
+        Boolean any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.split(";");
+            final String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) continue;
+            boolean rejected = false;
+            for (int i = 1; i < parts.length; i++) {
+                final String param = parts[i].trim().replace(" ", "");
+                if (param.startsWith("q=")) rejected = param.matches("q=0(\\.0*)?");
+            }
+            if (name.equals("*")) any = !rejected;
+            else gzip = !rejected;
+        }
+        return gzip != null ? gzip : any != null && any;
+    }
+
+    static boolean sameOrigin(HttpServletRequest request) {
+        return sameOrigin(request.getHeader("Origin"), request.getHeader("Host"));
+    }
+
+    // No Origin, as from clients other than browsers, or one whose host and port are those the request was sent to.
+    // Browsers send it with every WebSocket upgrade, and a page of another site cannot forge it
+    static boolean sameOrigin(String origin, String host) {
+        if (origin == null) return true;
+        if (host == null) return false;
+        try {
+            final String authority = new URI(origin).getAuthority();
+            return authority != null && authority.equalsIgnoreCase(host);
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+}
@@ -8,4 +8,9 @@ interface RequestProcessor {
     void resetField() throws IOException;
     void killServer(Server server) throws IOException;
     void processHintRequest() throws IOException;
+    void solveField() throws IOException;
+    void solveBatch() throws IOException;
+    void newField() throws IOException;
+    void processApiRequest() throws IOException;
+    void writeMetrics() throws IOException;
 }
@@ -0,0 +1,98 @@
+import lombok.Builder;
+import lombok.Value;
+import org.eclipse.jetty.io.SelectorManager;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+import java.util.Locale;
+
+/**
+ * How the Jetty server is put together: its threads, and its HTTP connector. Every part comes
+ * from a setting, see {@link #fromConfig()}; a value of -1 leaves the choice to Jetty.
+ */
+@Value
+@Builder
+class ServerConfig {
+    enum Executor {
+        /**
+         * A bounded pool of platform threads, Jetty's own
+         */
+        PLATFORM,
+        /**
+         * A new virtual thread for every request, where the JVM has them (21 and later), PLATFORM otherwise.
+         * Acceptors and selectors, which loop for as long as the server runs, stay on the platform pool
+         */
+        VIRTUAL
+    }
+
+    Executor executor;
+    int maxThreads;
+    int minThreads;
+    int threadIdleMillis;
+    int queueSize;              // Tasks waiting for a pooled thread, unbounded if -1
+    int acceptors;
+    int selectors;
+    int acceptQueueSize;        // Connections waiting in the kernel to be accepted, its default if -1
+    long idleTimeoutMillis;     // Of a connection
+
+    /**
+     * Settings: "executor" (platform or virtual), "threads.max", "threads.min", "threads.idle.ms",
+     * "threads.queue", "acceptors", "selectors", "accept.queue", "idle.timeout.ms".
+     */
+    static ServerConfig fromConfig() {
+        return ServerConfig.builder()
+                .executor(Executor.valueOf(Config.string("executor", "platform").toUpperCase(Locale.ROOT)))
+                .maxThreads(Config.integer("threads.max", 200))
+                .minThreads(Config.integer("threads.min", 8))
+                .threadIdleMillis(Config.integer("threads.idle.ms", 60_000))
+                .queueSize(Config.integer("threads.queue", -1))
+                .acceptors(Config.integer("acceptors", -1))
+                .selectors(Config.integer("selectors", -1))
+                .acceptQueueSize(Config.integer("accept.queue", -1))
+                .idleTimeoutMillis(Config.integer("idle.timeout.ms", 30_000))
+                .build();
+    }
+
+    Server createServer(int port) {
+        final Server server = new Server(createThreadPool());
+        final VirtualThreadPool virtual = executor == Executor.VIRTUAL ? VirtualThreadPool.create() : null;
+        if (executor == Executor.VIRTUAL && virtual == null) System.out.println("No virtual threads in this JVM, running on platform threads");
+
+        final ServerConnector connector;
+        if (virtual == null)
+            connector = new ServerConnector(server, acceptors, selectors);
+        else {
+            server.addManaged(virtual);             // Stopped after the connector, added later
+            connector = new ServerConnector(server, null, null, null, acceptors, selectors, new HttpConnectionFactory()) {
+                // What the selectors find to do runs on virtual threads; the selector loops themselves on the server's pool
+                @Override
+                protected SelectorManager newSelectorManager(java.util.concurrent.Executor loops, Scheduler scheduler, int selectors) {
+                    return new ServerConnectorManager(virtual, scheduler, selectors) {
+                        @Override
+                        protected void execute(Runnable task) {
+                            loops.execute(task);
+                        }
+                    };
+                }
+            };
+        }
+        connector.setPort(port);
+        connector.setIdleTimeout(idleTimeoutMillis);
+        if (acceptQueueSize >= 0) connector.setAcceptQueueSize(acceptQueueSize);
+        server.addConnector(connector);
+        return server;
+    }
+
+    private QueuedThreadPool createThreadPool() {
+        final QueuedThreadPool pool = queueSize < 0
+                ? new QueuedThreadPool(maxThreads, minThreads, threadIdleMillis)
+                : new QueuedThreadPool(maxThreads, minThreads, threadIdleMillis,
+                        new BlockingArrayQueue<>(Math.max(1, Math.min(queueSize, 1024)), 1024, Math.max(1, queueSize)));
+        pool.setName("jetty");
+        return pool;
+    }
+}
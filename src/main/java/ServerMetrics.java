@@ -0,0 +1,68 @@
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.HintMode;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * The metrics of the server, served at /metrics. Timings are per route handled by
+ * {@link ParsingHandler} and per phase of a request: reading the field from its cookie or session,
+ * generating hints, storing the field back, rendering the page and writing it out.
+ */
+final class ServerMetrics {
+    static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    private static final String[] ROUTES = {"/", "/hint", "/reset", "/load", "/solve", "/new", "/api/field", "/batch", "/metrics", "/terminate"};
+    private static final Map<String, LatencyHistogram> ROUTE_TIMES = new HashMap<>();
+    private static final LatencyHistogram OTHER_ROUTES;                 // Any number of them, not to make a metric each
+
+    static final LatencyHistogram DECODE = phase("decode");
+    static final LatencyHistogram RENDER = phase("render");
+    static final LatencyHistogram WRITE = phase("write");
+    static final LatencyHistogram ENCODE = phase("encode");
+
+    private static final LatencyHistogram[] HINT_TIMES = new LatencyHistogram[HintMode.values().length];
+
+    static {
+        for (String route : ROUTES)
+            ROUTE_TIMES.put(route, routeHistogram("route=\"" + route + '"'));
+        OTHER_ROUTES = routeHistogram("route=\"other\"");
+        for (HintMode mode : HintMode.values())
+            HINT_TIMES[mode.ordinal()] = REGISTRY.histogram("sudoku_hints_seconds",
+                    "Time to generate the hints of a field, by hint mode", "mode=\"" + mode.name().toLowerCase() + '"');
+    }
+
+    private ServerMetrics() {
+    }
+
+    private static LatencyHistogram routeHistogram(String labels) {
+        return REGISTRY.histogram("sudoku_request_seconds", "Time to handle a request, by route", labels);
+    }
+
+    private static LatencyHistogram phase(String name) {
+        return REGISTRY.histogram("sudoku_phase_seconds",
+                "Time spent in a phase of a request: decode and encode of the stored field, render and write of the page",
+                "phase=\"" + name + '"');
+    }
+
+    static LatencyHistogram route(String target) {
+        return ROUTE_TIMES.getOrDefault(target, OTHER_ROUTES);
+    }
+
+    static LatencyHistogram hints(HintMode mode) {
+        return HINT_TIMES[mode.ordinal()];
+    }
+
+    /**
+     * Adds the counters of a cache, as sudoku_cache_* metrics labelled with its name.
+     */
+    static void cache(String name, LongSupplier hits, LongSupplier misses, LongSupplier evictions, LongSupplier size) {
+        final String labels = "cache=\"" + name + '"';
+        REGISTRY.counter("sudoku_cache_hits_total", "Lookups that found an entry", labels, hits);
+        REGISTRY.counter("sudoku_cache_misses_total", "Lookups that found none", labels, misses);
+        REGISTRY.counter("sudoku_cache_evictions_total", "Entries dropped for size or idle time", labels, evictions);
+        REGISTRY.gauge("sudoku_cache_entries", "Entries held", labels, size);
+    }
+}
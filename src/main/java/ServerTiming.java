@@ -0,0 +1,47 @@
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Durations of the phases of one request, to go out in its Server-Timing header, where browser
+ * developer tools show them. Only made for requests that ask for it with an X-Server-Timing header,
+ * or for all of them with setting "server.timing"; otherwise there is none.
+ */
+final class ServerTiming {
+    private static final boolean ALWAYS = Config.bool("server.timing", false);
+    static final String REQUEST_HEADER = "X-Server-Timing";
+
+    private final StringBuilder header = new StringBuilder(96);
+
+    private ServerTiming() {
+    }
+
+    /**
+     * @return null unless this request is to be timed
+     */
+    static ServerTiming of(HttpServletRequest request) {
+        return ALWAYS || request.getHeader(REQUEST_HEADER) != null ? new ServerTiming() : null;
+    }
+
+    /**
+     * @param description shown along with the name, or null
+     */
+    void add(String name, String description, long nanos) {
+        if (header.length() > 0) header.append(", ");
+        header.append(name);
+        if (description != null) header.append(";desc=\"").append(description).append('"');
+
+        final long micros = nanos / 1000;           // In milliseconds, to the microsecond
+        header.append(";dur=").append(micros / 1000).append('.');
+        final long fraction = micros % 1000;
+        if (fraction < 100) header.append('0');
+        if (fraction < 10) header.append('0');
+        header.append(fraction);
+    }
+
+    /**
+     * Sets the header with the phases added so far, to be done before the response is committed.
+     */
+    void writeTo(HttpServletResponse response) {
+        if (header.length() > 0) response.setHeader("Server-Timing", header.toString());
+    }
+}
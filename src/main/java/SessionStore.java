@@ -0,0 +1,44 @@
+import cache.StripedLruCache;
+import model.SudokuField;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps playing fields on the server, so that the client only has to carry a session id.
+ * A stored field is never modified: readers get a copy and store it back when done.
+ */
+class SessionStore {
+    private static final int ID_BYTES = 16;
+
+    private final SecureRandom random = new SecureRandom();
+    final StripedLruCache<String, SudokuField> fields;
+
+    SessionStore(int maxSessions, long idleMinutes) {
+        fields = new StripedLruCache<>(maxSessions, idleMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return null unless enabled with setting "sessions"; playing fields are kept in cookies then
+     */
+    static SessionStore fromConfig() {
+        if (!Config.bool("sessions", false)) return null;
+        return new SessionStore(Config.integer("sessions.max", 10_000), Config.integer("sessions.idle.minutes", 30));
+    }
+
+    String newId() {
+        byte[] id = new byte[ID_BYTES];
+        random.nextBytes(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+    }
+
+    SudokuField get(String id) {
+        final SudokuField field = fields.get(id);
+        return field == null ? null : field.copy();
+    }
+
+    void put(String id, SudokuField field) {
+        fields.put(id, field);
+    }
+}
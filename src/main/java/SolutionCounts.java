@@ -0,0 +1,58 @@
+import cache.ObjectPool;
+import cache.StripedLruCache;
+import model.CanonicalForm;
+import model.Canonicalizer;
+import model.SolutionCount;
+import model.SudokuField;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers how many solutions uploaded fields have. Equivalent puzzles, the same up to symmetry and
+ * relabelling of digits, have as many solutions, so counts are kept by canonical form and a puzzle
+ * is only searched once however it is uploaded. Searches that gave up are not remembered. Clues that
+ * already conflict make the field invalid, without searching or remembering anything. Fields with too
+ * few clues to be a proper puzzle, and those the canonical search gives up on, are searched directly:
+ * that is cheaper than their canonical form, and they would rarely be uploaded twice.
+ */
+class SolutionCounts {
+    private static final int MIN_UNIQUE_CLUES = 17;         // No puzzle with fewer has a unique solution
+    private static final ObjectPool<Canonicalizer> CANONICALIZERS =
+            new ObjectPool<>(Runtime.getRuntime().availableProcessors(), Canonicalizer::new);
+
+    final StripedLruCache<String, SolutionCount> counts;
+    private final long maxNodes;
+
+    SolutionCounts(int maxPuzzles, long maxNodes) {
+        counts = new StripedLruCache<>(maxPuzzles, 1, TimeUnit.DAYS);
+        this.maxNodes = maxNodes;
+    }
+
+    static SolutionCounts fromConfig() {
+        return new SolutionCounts(Config.integer("upload.check.cache", 10_000), Config.integer("upload.check.nodes", 10_000));
+    }
+
+    SolutionCount of(SudokuField field) {
+        final int[] digits = field.getHardcodedDigits();
+        if (SolutionCount.hasConflicts(digits)) return SolutionCount.INVALID;
+        if (clues(digits) < MIN_UNIQUE_CLUES) return SolutionCount.count(digits, maxNodes);
+
+        final Canonicalizer canonicalizer = CANONICALIZERS.take();
+        final CanonicalForm form = canonicalizer.canonicalize(digits);
+        CANONICALIZERS.release(canonicalizer);
+        if (!form.isComplete()) return SolutionCount.count(digits, maxNodes);
+        SolutionCount count = counts.get(form.getKey());
+        if (count == null) {
+            count = SolutionCount.count(digits, maxNodes);
+            if (count != SolutionCount.UNDETERMINED) counts.put(form.getKey(), count);
+        }
+        return count;
+    }
+
+    private static int clues(int[] digits) {
+        int clues = 0;
+        for (int digit : digits)
+            if (digit != 0) clues++;
+        return clues;
+    }
+}
@@ -1,7 +1,11 @@
 import lombok.RequiredArgsConstructor;
+import metrics.LatencyHistogram;
+import model.Difficulty;
 import model.FieldLoader;
+import model.HintCache;
 import model.HintMode;
 import model.InvalidFieldDataException;
+import model.SolutionCount;
 import model.SudokuField;
 import org.eclipse.jetty.server.Server;
 import template.TemplateProcessor;
@@ -11,9 +15,15 @@ import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.Part;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -21,27 +31,117 @@ import java.util.stream.Stream;
 class StandardRequestProcessor implements RequestProcessor {
     private static final String CK_FIELD = "field";
     private static final String CK_HINT = "hint";
+    private static final String CK_SESSION = "sid";
+    private static final String CK_STATUS = "status";                   // Shown once, then deleted
+
+    private static final SolutionCounts SOLUTION_COUNTS = SolutionCounts.fromConfig();
+
+    private static final String PUZZLE_RETRY_SECONDS = "5";
+
+    private static final int GZIP_MIN_BYTES = Config.integer("gzip.min.bytes", 1024);
+
+    private static final HintCache HINTS = new HintCache(Config.integer("hints.cache", 10_000), 30);
+
+    private static final SessionStore SESSIONS = SessionStore.fromConfig();     // null if fields are kept in cookies
+
+    static {
+        ServerMetrics.cache("hints", HINTS::getHits, HINTS::getMisses, HINTS::getEvictions, HINTS::size);
+        ServerMetrics.cache("solution_counts", SOLUTION_COUNTS.counts::getHits, SOLUTION_COUNTS.counts::getMisses,
+                SOLUTION_COUNTS.counts::getEvictions, SOLUTION_COUNTS.counts::size);
+        if (SESSIONS != null) ServerMetrics.cache("sessions", SESSIONS.fields::getHits, SESSIONS.fields::getMisses,
+                SESSIONS.fields::getEvictions, SESSIONS.fields::size);
+        for (Difficulty difficulty : Difficulty.values())
+            ServerMetrics.REGISTRY.gauge("sudoku_puzzles_ready", "Generated puzzles waiting for a new game, by difficulty",
+                    "difficulty=\"" + difficulty.name().toLowerCase() + '"', () -> PuzzlePool.shared().available(difficulty));
+    }
 
     final HttpServletRequest request;
     final HttpServletResponse response;
 
+    private ServerTiming timing;                    // Null unless the request asks for it
+    private boolean sessionLookedUp;                // Once per request, for the cache to count it once
+    private String sessionId;                       // Of the request, null unless known to the store
+
     @Override
     public void processNormalRequest() throws IOException {
-        SudokuField playingField = getFieldFromCookies();
+        timing = ServerTiming.of(request);
+        SudokuField playingField = getStoredField();
         final HintMode cookieHintMode = getHintModeFromCookies();
 
+        final int colorCode = getColorCode();
+        applyMove(playingField, colorCode);
+
+        final String status = getCookieByName(CK_STATUS)
+                .map(Cookie::getValue)
+                .map(SolutionCount::of)
+                .map(SolutionCount::getMessage)
+                .orElse("");
+        deleteCookie(CK_STATUS);
+
+        final boolean gzip = RequestHeaders.acceptsGzip(request);
+        response.setHeader("Vary", "Accept-Encoding");
+        if (status.isEmpty()) {                     // A status is only shown once, the page is not the same again
+            String etag = TemplateProcessor.etag(playingField.serialize(cookieHintMode), cookieHintMode, colorCode);
+            if (gzip) etag = RequestHeaders.gzipVariant(etag);
+            response.setHeader("ETag", etag);
+            response.setHeader("Cache-Control", "no-cache");
+            if (RequestHeaders.etagMatches(request, etag)) {
+                if (timing != null) timing.writeTo(response);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        generateResponse(playingField, cookieHintMode, colorCode, status, gzip);
+    }
+
+    /**
+     * @return a socket to play the field of this request on, from now on the only one to change it
+     */
+    FieldSocket openFieldSocket() {
+        final SudokuField playingField = getStoredField();
+        final HintMode hintMode = getHintModeFromCookies();
+        final SessionStore sessions = sessions();
+        if (sessions == null) return new FieldSocket(playingField, hintMode, HINTS, null);
+
+        final String sessionId = this.sessionId;
+        return new FieldSocket(playingField, hintMode, HINTS, field -> {
+            if (sessionId != null) sessions.put(sessionId, field);
+        });
+    }
+
+    private void applyMove(SudokuField playingField, int colorCode) {
         final String cell = request.getParameter("cell");
         final String value = request.getParameter("value");
-        final int colorCode = Optional.ofNullable(request.getParameter("clr"))
-                .map(Integer::parseInt)
-                .orElse(1);
+        if (cell != null && value != null) playingField.setCellValue(cell, value, colorCode);
+    }
 
-        if (cell != null && value != null) try {
-            playingField.setCellValue(cell, value, colorCode);
-        } catch (NumberFormatException ignored) {
+    /**
+     * GET answers the state of the field, POST makes a move first, with the same parameters as the
+     * page. The state is {@link SudokuField#toWireFormat()}, for the client to update the board in place.
+     */
+    @Override
+    public void processApiRequest() throws IOException {
+        final boolean move = request.getMethod().equals("POST");
+        if (!move && !request.getMethod().equals("GET")) {
+            response.setHeader("Allow", "GET, POST");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
         }
 
-        generateResponse(playingField, cookieHintMode, colorCode);
+        timing = ServerTiming.of(request);
+        final SudokuField playingField = getStoredField();
+        final HintMode hintMode = getHintModeFromCookies();
+        if (move) applyMove(playingField, getColorCode());
+        generateHints(playingField, hintMode);
+        storeField(playingField, hintMode);
+
+        final byte[] state = playingField.toWireFormat();
+        if (timing != null) timing.writeTo(response);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/octet-stream");
+        response.setHeader("Cache-Control", "no-store");
+        response.setContentLength(state.length);
+        response.getOutputStream().write(state);
     }
 
     @Override
@@ -50,17 +150,26 @@ class StandardRequestProcessor implements RequestProcessor {
 
         HintMode requestHintMode = Optional.ofNullable(request.getParameter("hint")).map(HintMode::of).orElse(cookieHintMode);
 
-        System.out.printf("Hints: %s -> %s%n", cookieHintMode, requestHintMode);
-        if (cookieHintMode == HintMode.OFF && requestHintMode != HintMode.OFF) {
-            SudokuField playingField = getFieldFromCookies();
-            playingField.activateHints();
-            addFieldAsCookie(playingField);
+        if (requestHintMode != cookieHintMode
+                && (cookieHintMode == HintMode.OFF || requestHintMode == HintMode.MANUAL)) {
+            SudokuField playingField = getStoredField();
+            if (cookieHintMode == HintMode.OFF)
+                playingField.activateHints();
+            else                            // Manual mode starts from the hints displayed so far
+                generateHints(playingField, cookieHintMode);
+            storeField(playingField, requestHintMode);
         }
 
         response.addCookie(new Cookie(CK_HINT, requestHintMode.name()));
         response.sendRedirect("/");
     }
 
+    private int getColorCode() {
+        return Optional.ofNullable(request.getParameter("clr"))
+                .map(Integer::parseInt)
+                .orElse(1);
+    }
+
     private HintMode getHintModeFromCookies() {
         return getCookieByName(CK_HINT)
                 .map(Cookie::getValue)
@@ -68,41 +177,106 @@ class StandardRequestProcessor implements RequestProcessor {
                 .orElse(HintMode.OFF);
     }
 
-    private SudokuField getFieldFromCookies() {
-        return getCookieByName(CK_FIELD)
-                .map(Cookie::getValue)
-                .map(FieldLoader::deserializeField)
-                .orElse(FieldLoader.getDefaultField());
+    private SudokuField getStoredField() {
+        final long start = System.nanoTime();
+        final SessionStore sessions = sessions();
+        final SudokuField field = sessions == null
+                ? getCookieByName(CK_FIELD)
+                        .map(Cookie::getValue)
+                        .map(StandardRequestProcessor::deserializeField)
+                        .orElse(FieldLoader.getDefaultField())
+                : getSessionField(sessions);
+        timed(ServerMetrics.DECODE, "decode", null, start);
+        return field;
+    }
+
+    // A session id the store does not know, expired or made up, counts as none
+    private SudokuField getSessionField(SessionStore sessions) {
+        final String id = getCookieByName(CK_SESSION).map(Cookie::getValue).orElse(null);
+        final SudokuField field = id == null ? null : sessions.get(id);
+        sessionLookedUp = true;
+        sessionId = field == null ? null : id;
+        return field == null ? FieldLoader.getDefaultField() : field;
+    }
+
+    // A cookie that does not decode, whether damaged or forged, counts as none
+    private static SudokuField deserializeField(String cookie) {
+        try {
+            return FieldLoader.deserializeField(cookie);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
     @Override
     public void loadField() throws IOException {
         SudokuField newField;
+        SolutionCount status;
         try {
             final Part filePart = request.getPart("file");
             try (InputStream is = filePart.getInputStream()) {
                 byte[] buf = new byte[1024];
                 final int len = is.read(buf);
-                String contents = new String(buf, 0, len);
+                String contents = new String(buf, 0, Math.max(len, 0));     // An empty upload is no field either
                 newField = FieldLoader.getFieldFromString(contents);
             }
+            status = SOLUTION_COUNTS.of(newField);
         } catch (ServletException | InvalidFieldDataException e) {
             newField = FieldLoader.getEmptyField();
+            status = SolutionCount.INVALID;
         }
-        addFieldAsCookie(newField);
+        storeField(newField, HintMode.OFF);
         deleteCookie(CK_HINT);
+        response.addCookie(new Cookie(CK_STATUS, status.name()));
         response.sendRedirect("/");
     }
 
     @Override
     public void resetField() throws IOException {
-        final SudokuField playingField = getFieldFromCookies();
+        final SudokuField playingField = getStoredField();
         playingField.reset();
-        addFieldAsCookie(playingField);
+        storeField(playingField, HintMode.OFF);
+        deleteCookie(CK_HINT);
+        response.sendRedirect("/");
+    }
+
+    @Override
+    public void solveField() throws IOException {
+        final SudokuField playingField = getStoredField();
+        if (playingField.solve(getColorCode()))
+            storeField(playingField, getHintModeFromCookies());
+        response.sendRedirect("/");
+    }
+
+    @Override
+    public void newField() throws IOException {
+        final Difficulty difficulty = Difficulty.of(request.getParameter("level"));
+        final int[] puzzle = PuzzlePool.shared().take(difficulty);
+        if (puzzle == null) {                       // Rather than hold a thread until one is generated
+            response.setHeader("Retry-After", PUZZLE_RETRY_SECONDS);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "No " + difficulty.name().toLowerCase() + " puzzle ready yet");
+            return;
+        }
+        storeField(FieldLoader.getFieldFromDigits(puzzle), HintMode.OFF);
         deleteCookie(CK_HINT);
         response.sendRedirect("/");
     }
 
+    @Override
+    public void solveBatch() throws IOException {
+        if (!request.getMethod().equals("POST")) {
+            response.setHeader("Allow", "POST");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/plain;charset=us-ascii");
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.US_ASCII))) {
+            new BatchSolver().run(in, out);
+        }
+    }
+
     private void deleteCookie(String name) {
         getCookieByName(name).ifPresent(c -> {
                     c.setMaxAge(0);
@@ -111,21 +285,64 @@ class StandardRequestProcessor implements RequestProcessor {
         );
     }
 
-    private void generateResponse(SudokuField playingField, HintMode hintMode, int color) throws IOException {
-        playingField.generateHints(hintMode);
-        addFieldAsCookie(playingField);
+    private void generateResponse(SudokuField playingField, HintMode hintMode, int color, String status, boolean gzip) throws IOException {
+        generateHints(playingField, hintMode);
+        storeField(playingField, hintMode);
 
-        TemplateProcessor tp = TemplateProcessor.with(playingField, hintMode, color);
-        String responseHtml = tp.process();
+        long start = System.nanoTime();
+        final TemplateProcessor page = TemplateProcessor.with(playingField, hintMode, color).withStatus(status);
+        if (gzip) page.withCompression(GZIP_MIN_BYTES);
+        page.render();
+        timed(ServerMetrics.RENDER, "render", null, start);
+        if (timing != null) timing.writeTo(response);      // Writing cannot be in it, the headers go out first
 
-        try (PrintWriter writer = response.getWriter()) {
-            writer.print(responseHtml);
-            response.setStatus(HttpServletResponse.SC_OK);
+        start = System.nanoTime();
+        response.setStatus(HttpServletResponse.SC_OK);
+        page.writeTo(response);
+        ServerMetrics.WRITE.recordSince(start);
+    }
+
+    private void generateHints(SudokuField playingField, HintMode hintMode) {
+        final long start = System.nanoTime();
+        HINTS.generateHints(playingField, hintMode);
+        timed(ServerMetrics.hints(hintMode), "hints", hintMode.name(), start);
+    }
+
+    // Into the metrics, and the Server-Timing header if there is to be one
+    private void timed(LatencyHistogram histogram, String phase, String description, long start) {
+        final long nanos = System.nanoTime() - start;
+        histogram.record(nanos);
+        if (timing != null) timing.add(phase, description, nanos);
+    }
+
+    private void storeField(SudokuField playingField, HintMode hintMode) {
+        final long start = System.nanoTime();
+        final SessionStore sessions = sessions();
+        if (sessions == null) {
+            final Cookie cookie = new Cookie(CK_FIELD, playingField.serialize(hintMode));
+            cookie.setPath("/");                    // Also when stored by /api/field
+            response.addCookie(cookie);
+            timed(ServerMetrics.ENCODE, "encode", null, start);
+            return;
+        }
+
+        if (!sessionLookedUp) getSessionField(sessions);
+        if (sessionId == null) {                    // An id the store does not know is replaced rather than adopted
+            final Cookie cookie = new Cookie(CK_SESSION, sessions.newId());
+            cookie.setHttpOnly(true);
+            cookie.setPath("/");
+            response.addCookie(cookie);
+            sessionId = cookie.getValue();
         }
+        sessions.put(sessionId, playingField);      // Not to be modified any more
+        timed(ServerMetrics.ENCODE, "encode", null, start);
     }
 
-    private void addFieldAsCookie(SudokuField playingField) {
-        response.addCookie(new Cookie(CK_FIELD, playingField.serialize()));
+    /**
+     * @return where playing fields are kept, null if in cookies
+     */
+    SessionStore sessions() {
+        return SESSIONS;
     }
 
     private Optional<Cookie> getCookieByName(String name) {
@@ -136,6 +353,16 @@ class StandardRequestProcessor implements RequestProcessor {
                 .findAny();
     }
 
+    @Override
+    public void writeMetrics() throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/plain;version=0.0.4;charset=utf-8");
+        response.setHeader("Cache-Control", "no-store");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8))) {
+            ServerMetrics.REGISTRY.writeTo(writer);
+        }
+    }
+
     @Override
     public void killServer(Server server) throws IOException {
         try (PrintWriter writer = response.getWriter()) {
@@ -0,0 +1,148 @@
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves the files under a classpath directory, all of them read once at startup and kept in direct
+ * buffers along with a gzipped copy where that is smaller. Requests for anything else are left to
+ * the next handler.
+ */
+class StaticAssetHandler extends AbstractHandler {
+    private static final String CACHE_CONTROL = "public, max-age=" + Config.integer("assets.max.age.seconds", 86_400);
+
+    private final Map<String, Asset> assets = new HashMap<>();
+
+    /**
+     * @param root classpath directory, whose files are served under "/"
+     */
+    StaticAssetHandler(String root) {
+        final URL url = getClass().getClassLoader().getResource(root);
+        if (url == null) throw new IllegalStateException("No resource directory " + root);
+        try {
+            final URI uri = url.toURI();
+            if (uri.getScheme().equals("jar")) try (FileSystem jar = FileSystems.newFileSystem(uri, Collections.emptyMap())) {
+                load(jar.getPath(root));
+            }
+            else
+                load(Paths.get(uri));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load " + root, e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Cannot load " + root, e);
+        }
+    }
+
+    private void load(Path root) throws IOException {
+        final List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            final StringBuilder target = new StringBuilder();
+            for (Path part : root.relativize(file))
+                target.append('/').append(part);
+            assets.put(target.toString(), new Asset(target.toString(), Files.readAllBytes(file)));
+        }
+    }
+
+    int size() {
+        return assets.size();
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final Asset asset = assets.get(target);
+        if (asset == null) return;
+        baseRequest.setHandled(true);
+
+        final String method = request.getMethod();
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            response.setHeader("Allow", "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        final boolean gzip = asset.gzipped != null && RequestHeaders.acceptsGzip(request);
+        final String etag = gzip ? asset.gzipEtag : asset.etag;
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", CACHE_CONTROL);
+        if (asset.gzipped != null) response.setHeader("Vary", "Accept-Encoding");
+        if (RequestHeaders.etagMatches(request, etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        final ByteBuffer content = gzip ? asset.gzipped : asset.plain;
+        response.setContentType(asset.contentType);
+        if (gzip) response.setHeader("Content-Encoding", "gzip");
+        response.setContentLength(content.remaining());
+        if (method.equals("GET"))
+            baseRequest.getResponse().getHttpOutput().sendContent(content.duplicate());
+    }
+
+    private static class Asset {
+        final String contentType;
+        final ByteBuffer plain;
+        final ByteBuffer gzipped;           // null if compression does not make it smaller
+        final String etag;
+        final String gzipEtag;
+
+        Asset(String target, byte[] content) throws IOException {
+            final String mimeType = MimeTypes.getDefaultMimeByExtension(target);
+            contentType = mimeType == null ? "application/octet-stream"
+                    : mimeType.startsWith("text/") || mimeType.endsWith("javascript") ? mimeType + ";charset=utf-8"
+                    : mimeType;
+            plain = readOnlyDirect(content);
+
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(content);
+            }
+            gzipped = compressed.size() < content.length ? readOnlyDirect(compressed.toByteArray()) : null;
+
+            final String hash = hash(content);
+            etag = '"' + hash + '"';
+            gzipEtag = RequestHeaders.gzipVariant(etag);
+        }
+
+        private static ByteBuffer readOnlyDirect(byte[] bytes) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            return buffer.asReadOnlyBuffer();
+        }
+
+        private static String hash(byte[] content) {
+            try {
+                final byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is always available", e);
+            }
+        }
+    }
+}
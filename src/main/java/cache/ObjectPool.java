@@ -0,0 +1,70 @@
+package cache;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of reusable scratch objects, for state too costly to build per call that would
+ * otherwise be kept per thread. Unlike a ThreadLocal it holds no more objects than it has slots,
+ * however many threads come and go, as virtual threads do: one per task. An object taken when
+ * the pool is empty is made new, one released when it is full is discarded.
+ * <p>
+ * Slots are claimed and filled by compare-and-set, without locks; a thread starts looking at a
+ * slot of its own, so that threads working side by side mostly find different ones.
+ */
+public class ObjectPool<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final Supplier<T> factory;
+    private final Consumer<T> discard;
+
+    public ObjectPool(int capacity, Supplier<T> factory) {
+        this(capacity, factory, object -> {
+        });
+    }
+
+    /**
+     * @param discard frees what the garbage collector does not, such as the native memory of a Deflater
+     */
+    public ObjectPool(int capacity, Supplier<T> factory, Consumer<T> discard) {
+        if (capacity < 1) throw new IllegalArgumentException("Pool capacity must be positive: " + capacity);
+        slots = new AtomicReferenceArray<>(capacity);
+        this.factory = factory;
+        this.discard = discard;
+    }
+
+    /**
+     * @return an object for the caller alone until it is released
+     */
+    public T take() {
+        final int start = startSlot();
+        for (int i = 0; i < slots.length(); i++) {
+            final int slot = (start + i) % slots.length();
+            if (slots.get(slot) == null) continue;
+            final T object = slots.getAndSet(slot, null);
+            if (object != null) return object;
+        }
+        return factory.get();
+    }
+
+    /**
+     * Puts an object back for reuse; the caller must not touch it afterwards.
+     */
+    public void release(T object) {
+        final int start = startSlot();
+        for (int i = 0; i < slots.length(); i++)
+            if (slots.compareAndSet((start + i) % slots.length(), null, object)) return;
+        discard.accept(object);
+    }
+
+    int idle() {
+        int idle = 0;
+        for (int i = 0; i < slots.length(); i++)
+            if (slots.get(i) != null) idle++;
+        return idle;
+    }
+
+    private int startSlot() {
+        return (int) (Thread.currentThread().getId() % slots.length());
+    }
+}
@@ -0,0 +1,156 @@
+package cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded in-memory cache. Keys are spread over independently locked stripes, each of them
+ * an access-ordered map that drops its least recently used entry once it holds more than its
+ * share of the size bound. Entries not accessed for longer than the idle timeout count as absent
+ * and are dropped when they are looked up or reach the head of their stripe.
+ */
+public class StripedLruCache<K, V> {
+    private static final int STRIPES = 16;          // Power of 2
+
+    private final Stripe<K, V>[] stripes;
+    private final long idleNanos;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StripedLruCache(int maxSize, long idleTimeout, TimeUnit unit) {
+        this(maxSize, idleTimeout, unit, System::nanoTime);
+    }
+
+    StripedLruCache(int maxSize, long idleTimeout, TimeUnit unit, LongSupplier clock) {
+        if (maxSize < 1) throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        final int stripeCount = Math.min(STRIPES, Integer.highestOneBit(maxSize));
+        final int stripeSize = (maxSize + stripeCount - 1) / stripeCount;
+
+        stripes = newStripes(stripeCount);
+        for (int i = 0; i < stripeCount; i++)
+            stripes[i] = new Stripe<>(stripeSize, evictions);
+        idleNanos = unit.toNanos(idleTimeout);
+        this.clock = clock;
+    }
+
+    public V get(K key) {
+        final Stripe<K, V> stripe = stripeFor(key);
+        final long now = clock.getAsLong();
+        stripe.lock.lock();
+        try {
+            final Node<V> entry = stripe.map.get(key);
+            if (entry != null && now - entry.lastAccess > idleNanos) {
+                stripe.map.remove(key);
+                evictions.increment();
+            } else if (entry != null) {
+                entry.lastAccess = now;
+                hits.increment();
+                return entry.value;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        final Stripe<K, V> stripe = stripeFor(key);
+        final long now = clock.getAsLong();
+        stripe.lock.lock();
+        try {
+            stripe.map.put(key, new Node<>(value, now));
+            evictExpired(stripe, now);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void remove(K key) {
+        final Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            stripe.map.remove(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.map.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // The head of an access-ordered map is the entry idle for the longest time
+    private void evictExpired(Stripe<K, V> stripe, long now) {
+        final Iterator<Node<V>> iterator = stripe.map.values().iterator();
+        while (iterator.hasNext() && now - iterator.next().lastAccess > idleNanos) {
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Stripe<K, V>[] newStripes(int count) {
+        return (Stripe<K, V>[]) new Stripe<?, ?>[count];
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        final int hash = key.hashCode();
+        return stripes[(hash ^ hash >>> 16) & stripes.length - 1];
+    }
+
+    private static class Node<V> {
+        final V value;
+        long lastAccess;
+
+        Node(V value, long lastAccess) {
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static class Stripe<K, V> {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<K, Node<V>> map;
+
+        Stripe(int capacity, LongAdder evictions) {
+            map = new LinkedHashMap<K, Node<V>>(capacity * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Node<V>> eldest) {
+                    if (size() <= capacity) return false;
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+    }
+}
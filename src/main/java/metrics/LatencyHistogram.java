@@ -0,0 +1,94 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in log-linear buckets: every power of two is split into 8 buckets of equal
+ * width, so a value is known to within 12.5% across the whole range, from nanoseconds to minutes,
+ * in a few hundred counters. Recording is a handful of atomic increments, with no locks and no
+ * allocation, so it can go around anything a request does.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_BITS = 40;                     // 2^40 ns is over 18 minutes; longer ones go to the last bucket
+    static final int BUCKETS = (MAX_BITS - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;                               // nanoTime is monotonic, but be safe
+        counts.incrementAndGet(bucketOf(nanos));
+        sum.addAndGet(nanos);
+    }
+
+    /**
+     * Records the time since {@code startNanos}, as taken from {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * @return total of all recorded durations, in nanoseconds
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * @return how many recorded durations were at most {@code nanos}, exact if it is the upper bound
+     * of a bucket (as one less than a power of two is), otherwise counting all of its bucket
+     */
+    public long countAtMost(long nanos) {
+        final int last = bucketOf(nanos);
+        long count = 0;
+        for (int i = 0; i <= last; i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * @return the upper bound of the bucket of the recorded duration at the given quantile,
+     * 0 if nothing was recorded
+     */
+    public long valueAt(double quantile) {
+        final long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            total += snapshot[i] = counts.get(i);
+        if (total == 0) return 0;
+
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return upperBound(i);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_BITS) return BUCKETS - 1;
+        final int sub = (int) (nanos >>> exponent - SUB_BITS) & SUB_BUCKETS - 1;
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        final int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        final long width = 1L << exponent - SUB_BITS;
+        return (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) * width - 1;
+    }
+}
@@ -0,0 +1,93 @@
+package metrics;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics known by name, written out in the Prometheus text format. Everything is registered up
+ * front, and whatever records into a metric holds on to it, so that recording never looks
+ * anything up; counters and gauges are only read, from their suppliers, when written out.
+ * <p>
+ * Labels are given preformatted, as in {@code route="/hint"}, and several metrics of one name
+ * differ in their labels.
+ */
+public class MetricsRegistry {
+    // Histogram buckets written out, at powers of 4 from about a microsecond to 17 seconds
+    private static final int FIRST_BUCKET_BITS = 10;
+    private static final int LAST_BUCKET_BITS = 34;
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    public synchronized LatencyHistogram histogram(String name, String help, String labels) {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        family(name, help, "histogram").members.add(new Member(labels, histogram, null));
+        return histogram;
+    }
+
+    public synchronized void counter(String name, String help, String labels, LongSupplier value) {
+        family(name, help, "counter").members.add(new Member(labels, null, value));
+    }
+
+    public synchronized void gauge(String name, String help, String labels, LongSupplier value) {
+        family(name, help, "gauge").members.add(new Member(labels, null, value));
+    }
+
+    private Family family(String name, String help, String type) {
+        final Family family = families.computeIfAbsent(name, n -> new Family(help, type));
+        if (!family.type.equals(type)) throw new IllegalArgumentException(name + " is a " + family.type + ", not a " + type);
+        return family;
+    }
+
+    public synchronized void writeTo(Appendable out) throws IOException {
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            final String name = entry.getKey();
+            final Family family = entry.getValue();
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Member member : family.members)
+                if (member.histogram != null)
+                    writeHistogram(out, name, member.labels, member.histogram);
+                else
+                    writeSample(out, name, member.labels, Long.toString(member.value.getAsLong()));
+        }
+    }
+
+    // Durations go out in seconds, as Prometheus has them
+    private static void writeHistogram(Appendable out, String name, String labels, LatencyHistogram histogram) throws IOException {
+        final String separator = labels.isEmpty() ? "" : labels + ",";
+        for (int bits = FIRST_BUCKET_BITS; bits <= LAST_BUCKET_BITS; bits += 2) {
+            final long bound = 1L << bits;
+            writeSample(out, name + "_bucket", separator + "le=\"" + bound / 1e9 + '"', Long.toString(histogram.countAtMost(bound - 1)));
+        }
+        final long count = histogram.getCount();
+        writeSample(out, name + "_bucket", separator + "le=\"+Inf\"", Long.toString(count));
+        writeSample(out, name + "_sum", labels, Double.toString(histogram.getSum() / 1e9));
+        writeSample(out, name + "_count", labels, Long.toString(count));
+    }
+
+    private static void writeSample(Appendable out, String name, String labels, String value) throws IOException {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+
+    @RequiredArgsConstructor
+    private static class Family {
+        final String help;
+        final String type;
+        final List<Member> members = new ArrayList<>();
+    }
+
+    @RequiredArgsConstructor
+    private static class Member {
+        final String labels;
+        final LatencyHistogram histogram;       // Null for counters and gauges
+        final LongSupplier value;               // Null for histograms
+    }
+}
@@ -0,0 +1,46 @@
+package model;
+
+import static model.SudokuConstants.HTML_WALK_INDEX;
+
+/**
+ * The markup of the board never changes, only the cells do. It is built once as a table of tags
+ * to emit before each cell in document order, which is box by box as given by HTML_WALK_INDEX:
+ * <pre>
+ * &lt;tbody&gt;
+ *     &lt;tr&gt;                   3 rows of boxes
+ *         &lt;td&gt;&lt;table&gt;        3 boxes per row
+ *             &lt;tr&gt;           3 rows per box
+ *                 cells        3 cells per row
+ * </pre>
+ */
+final class BoardLayout {
+    private static final char[][] MARKUP_BEFORE = generateMarkupBeforeCells();     // 81
+    private static final char[] MARKUP_AFTER = "</tr></table></td></tr></tbody>".toCharArray();
+
+    private BoardLayout() {
+    }
+
+    static void appendHtml(StringBuilder builder, int[] cells) {
+        for (int i = 0; i < 81; i++) {
+            builder.append(MARKUP_BEFORE[i]);
+            final int index = HTML_WALK_INDEX[i];
+            SudokuCell.appendHtml(builder, index, cells[index]);
+        }
+        builder.append(MARKUP_AFTER);
+    }
+
+    private static char[][] generateMarkupBeforeCells() {
+        char[][] markup = new char[81][];
+        for (int i = 0; i < 81; i++) {
+            StringBuilder tags = new StringBuilder(i == 0 ? "<tbody>" : "");
+            if (i > 0 && i % 3 == 0) tags.append("</tr>");
+            if (i > 0 && i % 9 == 0) tags.append("</table></td>");
+            if (i > 0 && i % 27 == 0) tags.append("</tr>");
+            if (i % 27 == 0) tags.append("<tr>");
+            if (i % 9 == 0) tags.append("<td><table>");
+            if (i % 3 == 0) tags.append("<tr>");
+            markup[i] = tags.toString().toCharArray();
+        }
+        return markup;
+    }
+}
@@ -0,0 +1,36 @@
+package model;
+
+import static model.SudokuCell.hintBit;
+import static model.SudokuCell.isDefinite;
+import static model.SudokuConstants.CELL_BLOCK_TABLE;
+import static model.SudokuConstants.SUDOKU_BLOCK_INDEX;
+
+/**
+ * If a digit can only go to one box within a row or column, it cannot go anywhere else in that box.
+ */
+class BoxLineReduction extends HintTechnique {
+    BoxLineReduction() {
+        super("box_line");
+    }
+
+    @Override
+    int eliminate(SudokuField field) {
+        final int[] cells = field.cells;
+        int eliminated = 0;
+
+        for (int line = 0; line < 18; line++)
+            for (int digit = 1; digit <= 9; digit++) {
+                final int bit = hintBit(digit);
+                int boxes = 0;
+                for (int index : SUDOKU_BLOCK_INDEX[line])
+                    if (!isDefinite(cells[index]) && (cells[index] & bit) != 0)
+                        boxes |= 1 << CELL_BLOCK_TABLE[index][2];
+                if (Integer.bitCount(boxes) != 1) continue;
+
+                final int lineType = line / 9;
+                for (int index : SUDOKU_BLOCK_INDEX[Integer.numberOfTrailingZeros(boxes)])
+                    if (CELL_BLOCK_TABLE[index][lineType] != line) eliminated += eliminate(cells, index, bit);
+            }
+        return eliminated;
+    }
+}
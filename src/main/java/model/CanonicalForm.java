@@ -0,0 +1,76 @@
+package model;
+
+/**
+ * A puzzle in canonical form, see {@link Canonicalizer}, along with the transform that leads there.
+ * Equivalent puzzles share the key, so anything derived from the canonical grid can be computed
+ * once and mapped back to each of them.
+ */
+public final class CanonicalForm {
+    private final int[] grid;           // Canonical digits, 0 for empty cells
+    private final int[] cells;          // Canonical cell index -> original cell index
+    private final int[] digits;         // Original digit -> canonical digit, a permutation of 1..9
+    private final int[] inverseDigits;
+    private final String key;
+    private final boolean complete;
+
+    CanonicalForm(int[] grid, int[] cells, int[] digits, boolean complete) {
+        this.grid = grid;
+        this.cells = cells;
+        this.digits = digits;
+        this.complete = complete;
+        inverseDigits = new int[10];
+        for (int d = 1; d <= 9; d++)
+            inverseDigits[digits[d]] = d;
+        key = pack(grid);
+    }
+
+    /**
+     * @return the canonical grid packed two cells per character, 41 characters in all
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return false if the search stopped at its caps; the grid is then equivalent to the puzzle, but
+     * equivalent puzzles may not share its key
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int[] getGrid() {
+        return grid.clone();
+    }
+
+    /**
+     * @param original 81 digits in the layout of the original puzzle, e.g. one of its solutions
+     * @return the same digits in canonical layout and labels
+     */
+    public int[] toCanonical(int[] original) {
+        final int[] canonical = new int[81];
+        for (int i = 0; i < 81; i++) {
+            final int digit = original[cells[i]];
+            canonical[i] = digit == 0 ? 0 : digits[digit];
+        }
+        return canonical;
+    }
+
+    /**
+     * @param canonical 81 digits in canonical layout and labels, e.g. a solution of the canonical grid
+     * @return the same digits in the layout and labels of the original puzzle
+     */
+    public int[] fromCanonical(int[] canonical) {
+        final int[] original = new int[81];
+        for (int i = 0; i < 81; i++)
+            original[cells[i]] = canonical[i] == 0 ? 0 : inverseDigits[canonical[i]];
+        return original;
+    }
+
+    private static String pack(int[] grid) {
+        final char[] packed = new char[41];
+        for (int i = 0; i < 81; i += 2)
+            packed[i / 2] = (char) (grid[i] * 10 + (i < 80 ? grid[i + 1] : 0));
+        return new String(packed);
+    }
+}
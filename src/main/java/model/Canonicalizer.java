@@ -0,0 +1,285 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Finds the canonical form of a puzzle among all puzzles it can be turned into by the symmetries of
+ * Sudoku: transposition, permuting bands, rows within a band, stacks and columns within a stack, and
+ * relabelling digits. Of these, the canonical one has its clues furthest to the front when read row
+ * by row, and of those, the one whose digits, relabelled in order of first appearance, read least.
+ * <p>
+ * Where the clues are does not depend on digits, so the first criterion is met by a search over rows
+ * alone: columns are kept in an ordered partition that every chosen row refines, putting its clues
+ * first, and a branch is dropped as soon as one of its rows has its clues less to the front than the
+ * best so far. Only the few arrangements left equal are compared digit by digit, in every column
+ * order their partition still allows.
+ * <p>
+ * Sparse, symmetric patterns leave many arrangements and column orders alike; both are capped, and
+ * a form found within the caps is still equivalent to the puzzle but may not be the canonical one.
+ * <p>
+ * Instances are reusable but not thread-safe.
+ */
+public class Canonicalizer {
+    private static final int MAX_LEAVES = 1 << 12;
+    private static final int MAX_COMPARISONS = 1 << 14;
+
+    private final int[][] grids = new int[2][81];       // The puzzle, as given and transposed
+    private int[] grid;                                  // The one of grids being searched
+    private int transposed;
+    private final int[] rowOf = new int[9];             // Output row -> row of the grid
+
+    // Per search depth: columns in output order, and which positions start a cell of columns that
+    // can still be swapped, or a run of stacks that can, as bitmasks
+    private final int[][] columns = new int[10][9];
+    private final int[] cellStarts = new int[10];
+    private final int[] stackStarts = new int[10];
+    private final int[] segments = new int[3];          // Clue bits of a row per stack, first column highest
+    private final int[] stackCells = new int[3];        // Cell starts per stack, first column lowest
+
+    private final int[] bestPattern = new int[9];       // Clue bits per row, first column highest
+    private int bestRows;                               // Rows of bestPattern that still count
+
+    // Arrangements that reach bestPattern: transposition, rows, columns, cell starts, stack starts
+    private int[][] leaves = new int[16][];
+    private int leafCount;
+
+    private final int[] colOf = new int[9];             // Output column -> column of the grid
+    private final int[] labels = new int[10];
+    private final int[] best = new int[81];
+    private final int[] bestCells = new int[81];
+    private final int[] bestLabels = new int[10];
+    private boolean found;
+    private boolean leavesDropped;
+    private int comparisons;                            // Column orders compared with the best so far
+
+    public CanonicalForm canonicalize(int[] digits) {
+        assert digits.length == 81;
+        for (int i = 0; i < 81; i++) {
+            grids[0][i] = digits[i];
+            grids[1][i] = digits[i % 9 * 9 + i / 9];
+        }
+
+        bestRows = 0;
+        leafCount = 0;
+        leavesDropped = false;
+        for (transposed = 0; transposed < 2; transposed++) {
+            grid = grids[transposed];
+            for (int i = 0; i < 9; i++)
+                columns[0][i] = i;
+            cellStarts[0] = 1 | 1 << 3 | 1 << 6;
+            stackStarts[0] = 1;
+            searchRows(0, 0);
+        }
+
+        found = false;
+        comparisons = 0;
+        for (int i = 0; i < leafCount && comparisons < MAX_COMPARISONS; i++) {
+            System.arraycopy(leaves[i], 10, colOf, 0, 9);
+            permuteStacks(leaves[i], 0);
+        }
+
+        final int[] digitMap = bestLabels.clone();
+        int label = 0;
+        for (int d = 1; d <= 9; d++)
+            label = Math.max(label, digitMap[d]);
+        for (int d = 1; d <= 9; d++)                    // Digits missing from the puzzle take the rest in order
+            if (digitMap[d] == 0) digitMap[d] = ++label;
+
+        return new CanonicalForm(best.clone(), bestCells.clone(), digitMap,
+                !leavesDropped && comparisons < MAX_COMPARISONS);
+    }
+
+    private void searchRows(int slot, int usedRows) {
+        if (slot == 9) {
+            addLeaf();
+            return;
+        }
+        final boolean newBand = slot % 3 == 0;
+        final int bandStart = newBand ? 0 : rowOf[slot - 1] / 3 * 3;
+        for (int row = bandStart; row < (newBand ? 9 : bandStart + 3); row++) {
+            if ((usedRows & 1 << row) != 0) continue;
+            if (newBand && (usedRows & 7 << row / 3 * 3) != 0) continue;        // Band already used
+            if (!placeRow(slot, row)) continue;
+            rowOf[slot] = row;
+            searchRows(slot + 1, usedRows | 1 << row);
+        }
+    }
+
+    /**
+     * Puts the clues of a row first within every cell of the partition of depth {@code slot}, and
+     * tied stacks in order of their clues, which gives the partition of depth {@code slot + 1}. The
+     * resulting row is compared with the same row of the best pattern; a better one replaces it,
+     * making the rows below it and all arrangements found so far obsolete.
+     *
+     * @return false if the row has its clues less to the front than the best one
+     */
+    private boolean placeRow(int slot, int row) {
+        final int[] in = columns[slot];
+        final int[] out = columns[slot + 1];
+        final int inCells = cellStarts[slot];
+
+        for (int stack = 0; stack < 3; stack++) {
+            int segment = 0;
+            int cells = 0;
+            for (int start = stack * 3, end; start < stack * 3 + 3; start = end) {
+                end = start + 1;
+                while (end < stack * 3 + 3 && (inCells & 1 << end) == 0) end++;
+                int next = start;
+                for (int q = start; q < end; q++)
+                    if (grid[row * 9 + in[q]] != 0) {
+                        segment |= 4 >> next - stack * 3;
+                        out[next++] = in[q];
+                    }
+                final int split = next;
+                for (int q = start; q < end; q++)
+                    if (grid[row * 9 + in[q]] == 0) out[next++] = in[q];
+                cells |= 1 << start - stack * 3;
+                if (split > start && split < end) cells |= 1 << split - stack * 3;
+            }
+            segments[stack] = segment;
+            stackCells[stack] = cells;
+        }
+
+        final int inStacks = stackStarts[slot];
+        int outStacks = 0;
+        int pattern = 0;
+        for (int start = 0, end; start < 3; start = end) {
+            end = start + 1;
+            while (end < 3 && (inStacks & 1 << end) == 0) end++;
+            for (int i = start + 1; i < end; i++)       // Insertion sort, most clues to the front first
+                for (int j = i; j > start && segments[j] > segments[j - 1]; j--)
+                    swapStacks(out, j, j - 1);
+            for (int i = start; i < end; i++) {
+                if (i == start || segments[i] != segments[i - 1]) outStacks |= 1 << i;
+                pattern = pattern << 3 | segments[i];
+            }
+        }
+
+        if (slot < bestRows && pattern < bestPattern[slot]) return false;
+        if (slot >= bestRows || pattern > bestPattern[slot]) {
+            bestPattern[slot] = pattern;
+            bestRows = slot + 1;
+            leafCount = 0;
+            leavesDropped = false;
+        }
+        cellStarts[slot + 1] = stackCells[0] | stackCells[1] << 3 | stackCells[2] << 6;
+        stackStarts[slot + 1] = outStacks;
+        return true;
+    }
+
+    private void swapStacks(int[] out, int a, int b) {
+        for (int i = 0; i < 3; i++) {
+            final int t = out[a * 3 + i];
+            out[a * 3 + i] = out[b * 3 + i];
+            out[b * 3 + i] = t;
+        }
+        int t = segments[a];
+        segments[a] = segments[b];
+        segments[b] = t;
+        t = stackCells[a];
+        stackCells[a] = stackCells[b];
+        stackCells[b] = t;
+    }
+
+    private void addLeaf() {
+        if (leafCount == MAX_LEAVES) {                  // Only highly symmetric patterns get here
+            leavesDropped = true;
+            return;
+        }
+        if (leafCount == leaves.length) leaves = Arrays.copyOf(leaves, leafCount * 2);
+        int[] leaf = leaves[leafCount];
+        if (leaf == null) leaf = leaves[leafCount] = new int[21];
+        leaf[0] = transposed;
+        System.arraycopy(rowOf, 0, leaf, 1, 9);
+        System.arraycopy(columns[9], 0, leaf, 10, 9);
+        leaf[19] = cellStarts[9];
+        leaf[20] = stackStarts[9];
+        leafCount++;
+    }
+
+    // Tied stacks can still be swapped, columns and all
+    private void permuteStacks(int[] leaf, int position) {
+        if (position == 3) {
+            permuteColumns(leaf, 0);
+            return;
+        }
+        int end = position + 1;
+        while (end < 3 && (leaf[20] & 1 << end) == 0) end++;
+        permuteStacks(leaf, position, end);
+    }
+
+    private void permuteStacks(int[] leaf, int from, int end) {
+        if (end - from <= 1) {
+            permuteStacks(leaf, end);
+            return;
+        }
+        for (int i = from; i < end && comparisons < MAX_COMPARISONS; i++) {
+            swapColumns(from * 3, i * 3, 3);
+            permuteStacks(leaf, from + 1, end);
+            swapColumns(from * 3, i * 3, 3);
+        }
+    }
+
+    // As can the columns of a cell
+    private void permuteColumns(int[] leaf, int position) {
+        if (position == 9) {
+            compareDigits(leaf);
+            return;
+        }
+        int end = position + 1;
+        while (end % 3 != 0 && (leaf[19] & 1 << end) == 0) end++;
+        permuteColumns(leaf, position, end);
+    }
+
+    private void permuteColumns(int[] leaf, int from, int end) {
+        if (end - from <= 1) {
+            permuteColumns(leaf, end);
+            return;
+        }
+        for (int i = from; i < end && comparisons < MAX_COMPARISONS; i++) {
+            swapColumns(from, i, 1);
+            permuteColumns(leaf, from + 1, end);
+            swapColumns(from, i, 1);
+        }
+    }
+
+    private void swapColumns(int a, int b, int count) {
+        for (int i = 0; i < count && a != b; i++) {
+            final int t = colOf[a + i];
+            colOf[a + i] = colOf[b + i];
+            colOf[b + i] = t;
+        }
+    }
+
+    private void compareDigits(int[] leaf) {
+        comparisons++;
+        final int[] grid = grids[leaf[0]];
+        Arrays.fill(labels, 0);
+        int next = 1;
+        int comparison = found ? 0 : -1;
+        for (int slot = 0; slot < 9; slot++) {
+            final int row = leaf[1 + slot];
+            for (int col = 0; col < 9; col++) {
+                final int digit = grid[row * 9 + colOf[col]];
+                if (digit == 0) continue;
+                if (labels[digit] == 0) labels[digit] = next++;
+                if (comparison == 0) {
+                    comparison = labels[digit] - best[slot * 9 + col];
+                    if (comparison > 0) return;
+                }
+            }
+        }
+        if (comparison == 0) return;
+
+        found = true;
+        for (int slot = 0; slot < 9; slot++) {
+            final int row = leaf[1 + slot];
+            for (int col = 0; col < 9; col++) {
+                final int digit = grid[row * 9 + colOf[col]];
+                best[slot * 9 + col] = digit == 0 ? 0 : labels[digit];
+                bestCells[slot * 9 + col] = leaf[0] == 0 ? row * 9 + colOf[col] : colOf[col] * 9 + row;
+            }
+        }
+        System.arraycopy(labels, 0, bestLabels, 0, 10);
+    }
+}
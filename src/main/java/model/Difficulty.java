@@ -0,0 +1,28 @@
+package model;
+
+/**
+ * How hard a puzzle is, rated by the number of guesses {@link SudokuSolver} needs for it.
+ */
+public enum Difficulty {
+    EASY(0), MEDIUM(3), HARD(Integer.MAX_VALUE);
+
+    private final int maxGuesses;
+
+    Difficulty(int maxGuesses) {
+        this.maxGuesses = maxGuesses;
+    }
+
+    public static Difficulty of(String level) {
+        try {
+            return Difficulty.valueOf(level.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException ignored) {
+            return Difficulty.MEDIUM;
+        }
+    }
+
+    static Difficulty rate(int guesses) {
+        for (Difficulty difficulty : values())
+            if (guesses <= difficulty.maxGuesses) return difficulty;
+        return HARD;
+    }
+}
@@ -0,0 +1,181 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.IntUnaryOperator;
+
+import static model.SudokuCell.*;
+
+/**
+ * Cookie representation of the field state.
+ * <p>
+ * Version 2 is a bit stream in URL-safe Base64 without padding: a version byte, a flags byte and one
+ * entry per cell. An entry starts with a 2-bit kind: empty, hardcoded (4-bit digit) or definite (4-bit
+ * digit and 4-bit color). Depending on the flags it is followed by the "hint on" bit, the 9-bit
+ * candidate mask, or, for empty cells, a 3-bit count of further empty cells that follow it.
+ * Candidate masks are only written when they cannot be recalculated, i.e. in manual hint mode.
+ * <p>
+ * Version 1 is the original 4 bytes per cell value in standard Base64 (432 characters); it is still
+ * accepted by {@link #decode(String)}.
+ */
+class FieldCodec {
+    private static final int VERSION = 2;
+    private static final int LEGACY_LENGTH = 432;
+
+    private static final int FLAG_CANDIDATES = 0x01;    // Every entry carries its candidate mask
+    private static final int FLAG_ALL_HINTED = 0x02;    // Every cell has the "hint on" bit
+    private static final int FLAG_MIXED_HINTED = 0x04;  // Every entry carries its own "hint on" bit
+    private static final int FLAG_RUN_LENGTH = 0x08;    // Empty entries carry the number of empty cells after them
+
+    private static final int KIND_EMPTY = 0;
+    private static final int KIND_HARDCODED = 1;
+    private static final int KIND_DEFINITE = 2;
+
+    private static final int MAX_RUN = 7;
+
+    static String encode(IntUnaryOperator valueFromIndex, boolean withCandidates) {
+        final int[] values = new int[81];
+        int hinted = 0;
+        for (int i = 0; i < 81; i++) {
+            values[i] = valueFromIndex.applyAsInt(i);
+            if ((values[i] & HINT_ON) != 0) hinted++;
+        }
+
+        int flags = withCandidates ? FLAG_CANDIDATES : 0;
+        if (hinted == 81) flags |= FLAG_ALL_HINTED;
+        else if (hinted > 0) flags |= FLAG_MIXED_HINTED;
+        if ((flags & (FLAG_CANDIDATES | FLAG_MIXED_HINTED)) == 0) flags |= FLAG_RUN_LENGTH;
+
+        final BitWriter out = new BitWriter();
+        out.write(VERSION, 8);
+        out.write(flags, 8);
+        for (int i = 0; i < 81; i++) {
+            final int value = values[i];
+            if ((value & HARDCODED) == HARDCODED) {
+                out.write(KIND_HARDCODED, 2);
+                out.write(value >> 12 & 0xF, 4);
+            } else if ((value & DEFINITE) == DEFINITE) {
+                out.write(KIND_DEFINITE, 2);
+                out.write(value >> 12 & 0xF, 4);
+                out.write(value >> 16 & 0xF, 4);
+            } else {
+                out.write(KIND_EMPTY, 2);
+                if ((flags & FLAG_RUN_LENGTH) != 0) {
+                    int run = 0;
+                    while (run < MAX_RUN && i + 1 < 81 && isEmpty(values[i + 1])) {
+                        run++;
+                        i++;
+                    }
+                    out.write(run, 3);
+                    continue;
+                }
+            }
+            if ((flags & FLAG_MIXED_HINTED) != 0) out.write(value >> 9 & 1, 1);
+            if ((flags & FLAG_CANDIDATES) != 0) out.write(value & HINT_MASK, 9);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    private static boolean isEmpty(int value) {
+        return (value & DEFINITE) == 0;
+    }
+
+    static int[] decode(String encoded) {
+        if (encoded.length() == LEGACY_LENGTH) return decodeLegacy(encoded);
+
+        final BitReader in = new BitReader(Base64.getUrlDecoder().decode(encoded));
+        final int version = in.read(8);
+        if (version != VERSION) throw new IllegalArgumentException("Unknown field encoding version " + version);
+        final int flags = in.read(8);
+        final int allHinted = (flags & FLAG_ALL_HINTED) != 0 ? HINT_ON : 0;
+
+        int[] values = new int[81];
+        for (int i = 0; i < 81; i++) {
+            int value;
+            switch (in.read(2)) {
+                case KIND_HARDCODED:
+                    value = hardcodedValue(readDigit(in, i));
+                    break;
+                case KIND_DEFINITE:
+                    value = DEFINITE | readDigit(in, i) << 12;
+                    value |= in.read(4) << 16;
+                    break;
+                case KIND_EMPTY:
+                    value = 0;
+                    if ((flags & FLAG_RUN_LENGTH) != 0) {
+                        int run = in.read(3);
+                        values[i] = allHinted;
+                        for (; run > 0 && i + 1 < 81; run--)
+                            values[++i] = allHinted;
+                        continue;
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown cell kind at cell " + i);
+            }
+            if ((flags & FLAG_MIXED_HINTED) != 0) value |= in.read(1) << 9;
+            if ((flags & FLAG_CANDIDATES) != 0) value |= in.read(9);
+            values[i] = value | allHinted;
+        }
+        return values;
+    }
+
+    private static int readDigit(BitReader in, int cell) {
+        final int digit = in.read(4);
+        checkDigit(digit, cell);
+        return digit;
+    }
+
+    // A digit out of range would index past the per-digit tables of SudokuField
+    private static void checkDigit(int digit, int cell) {
+        if (digit < 1 || digit > 9) throw new IllegalArgumentException("Invalid digit " + digit + " at cell " + cell);
+    }
+
+    private static int[] decodeLegacy(String encoded) {
+        final byte[] bytes = Base64.getDecoder().decode(encoded);
+        assert bytes.length == 324;
+
+        int[] values = new int[81];
+        for (int i = 0; i < 81; i++) {
+            int x = 0;
+            for (int k = 0; k < 4; k++) {
+                x <<= 8;
+                x += (bytes[i * 4 + k] + 256) & 255;
+            }
+            if ((x & DEFINITE) != 0) checkDigit(x >> 12 & 0xF, i);
+            values[i] = x;
+        }
+        return values;
+    }
+
+    private static class BitWriter {
+        private final byte[] buffer = new byte[2 + (81 * 20 + 7) / 8];     // Largest entry is 20 bits
+        private int bitPosition;
+
+        void write(int value, int bits) {
+            for (int bit = bits - 1; bit >= 0; bit--, bitPosition++)
+                if ((value >> bit & 1) != 0) buffer[bitPosition >> 3] |= 0x80 >>> (bitPosition & 7);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, (bitPosition + 7) >> 3);
+        }
+    }
+
+    private static class BitReader {
+        private final byte[] buffer;
+        private int bitPosition;
+
+        BitReader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int read(int bits) {
+            if (bitPosition + bits > buffer.length * 8) throw new IllegalArgumentException("Truncated field data");
+            int value = 0;
+            for (int i = 0; i < bits; i++, bitPosition++)
+                value = value << 1 | (buffer[bitPosition >> 3] >> (7 - (bitPosition & 7)) & 1);
+            return value;
+        }
+    }
+}
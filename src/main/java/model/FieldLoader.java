@@ -14,9 +14,8 @@ public class FieldLoader {
             int[] values = new int[81];
             for (int row = 0; row < 9; row++) {
                 for (int col = 0; col < 9; col++) {
-                    int strNum = (int) (textRepresentation[row].charAt(col)) - '0';
-                    int num = (strNum < 0 || strNum > 9) ? 0 : hardcodedValue(strNum);
-                    values[row * 9 + col] = num;
+                    int num = charToDigit(textRepresentation[row].charAt(col));
+                    values[row * 9 + col] = num == 0 ? 0 : hardcodedValue(num);
                 }
             }
             return values;
@@ -25,6 +24,24 @@ public class FieldLoader {
         }
     }
 
+    private static int charToDigit(char c) {
+        int strNum = (int) c - '0';
+        return (strNum < 0 || strNum > 9) ? 0 : strNum;
+    }
+
+    /**
+     * Reads a puzzle written on a single line, with the same placeholders for empty cells as in field files.
+     *
+     * @return 81 digits in row-major order, 0 for empty cells
+     */
+    public static int[] lineToDigits(String line) throws InvalidFieldDataException {
+        if (line.length() != 81) throw new InvalidFieldDataException("Expected 81 cells, got " + line.length());
+        int[] digits = new int[81];
+        for (int i = 0; i < 81; i++)
+            digits[i] = charToDigit(line.charAt(i));
+        return digits;
+    }
+
     public static SudokuField getDefaultField() {
         try {
             final List<String> strs = IOUtils.readLines(Objects.requireNonNull(FieldLoader.class
@@ -56,6 +73,16 @@ public class FieldLoader {
         return new SudokuField(decode(base64encoded));
     }
 
+    /**
+     * @param digits 81 digits in row-major order, 0 for empty cells; all others become hardcoded
+     */
+    public static SudokuField getFieldFromDigits(int[] digits) {
+        int[] values = new int[81];
+        for (int i = 0; i < 81; i++)
+            values[i] = digits[i] == 0 ? 0 : hardcodedValue(digits[i]);
+        return new SudokuField(values);
+    }
+
     public static SudokuField getEmptyField() {
         return new SudokuField(new int[81]);
     }
@@ -64,32 +91,11 @@ public class FieldLoader {
         return getFieldFromText(Collections.singletonList(contents));
     }
 
-    static String encode(IntUnaryOperator valueFromIndex) {
-        final byte[] bytes = new byte[324];
-        for (int i = 0; i < 81; i++) {
-            int x = valueFromIndex.applyAsInt(i);
-            for (int k = 3; k >= 0; k--) {
-                bytes[i * 4 + k] = (byte) (x & 255);
-                x >>= 8;
-            }
-        }
-        return new String(Base64.getEncoder().encode(bytes));
+    static String encode(IntUnaryOperator valueFromIndex, boolean withCandidates) {
+        return FieldCodec.encode(valueFromIndex, withCandidates);
     }
 
     private static int[] decode(String encoded) {
-        final byte[] bytes = Base64.getDecoder().decode(encoded);
-        assert bytes.length == 324;
-
-        int[] values = new int[81];
-        for (int i = 0; i < 81; i++) {
-            int x = 0;
-            for (int k = 0; k < 4; k++) {
-                x <<= 8;
-                x += (bytes[i * 4 + k] + 256) & 255;
-            }
-            values[i] = x;
-        }
-        return values;
+        return FieldCodec.decode(encoded);
     }
 }
-
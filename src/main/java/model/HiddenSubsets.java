@@ -0,0 +1,60 @@
+package model;
+
+import static model.SudokuCell.hintBit;
+import static model.SudokuCell.isDefinite;
+import static model.SudokuConstants.SUDOKU_BLOCK_INDEX;
+import static model.util.Combinatorics.BIT_COUNT;
+import static model.util.Combinatorics.SUBSET_MASKS;
+
+/**
+ * If k digits of a block can only go to the same k cells, these cells can have no other digits.
+ * Fewer than k cells make the block inconsistent. Groups of up to half the block's open digits
+ * are examined, larger ones are the counterparts of naked subsets.
+ */
+class HiddenSubsets extends HintTechnique {
+    HiddenSubsets() {
+        super("hidden_subsets");
+    }
+
+    @Override
+    int eliminate(SudokuField field) {
+        final int[] cells = field.cells;
+        final int[] indefinite = field.scratch.cells;
+        final int[] digits = field.scratch.digits;
+        final int[] positions = field.scratch.positions;     // Bitmask of indefinite cells per open digit
+        int eliminated = 0;
+
+        for (int[] blockIndex : SUDOKU_BLOCK_INDEX) {
+            int numIndefs = 0;
+            for (int index : blockIndex)
+                if (!isDefinite(cells[index])) indefinite[numIndefs++] = index;
+
+            int numDigits = 0;
+            for (int digit = 1; digit <= 9; digit++) {
+                int digitPositions = 0;
+                for (int i = 0; i < numIndefs; i++)
+                    if ((cells[indefinite[i]] & hintBit(digit)) != 0) digitPositions |= 1 << i;
+                if (digitPositions == 0) continue;
+                digits[numDigits] = hintBit(digit);
+                positions[numDigits++] = digitPositions;
+            }
+
+            // Positions are not updated while eliminating; that can only hide subsets, not fake them
+            for (int groupSize = 1; groupSize <= numDigits / 2; groupSize++)
+                for (int group : SUBSET_MASKS[numDigits][groupSize]) {
+                    int groupDigits = 0;
+                    int groupPositions = 0;
+                    for (int g = group; g != 0; g &= g - 1) {
+                        final int d = Integer.numberOfTrailingZeros(g);
+                        groupDigits |= digits[d];
+                        groupPositions |= positions[d];
+                    }
+                    if (BIT_COUNT[groupPositions] < groupSize) NakedSubsets.markCellsAsBad(cells, blockIndex);
+                    if (BIT_COUNT[groupPositions] != groupSize) continue;
+                    for (int p = groupPositions; p != 0; p &= p - 1)
+                        eliminated += eliminate(cells, indefinite[Integer.numberOfTrailingZeros(p)], ~groupDigits);
+                }
+        }
+        return eliminated;
+    }
+}
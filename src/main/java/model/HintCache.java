@@ -0,0 +1,99 @@
+package model;
+
+import cache.StripedLruCache;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+import static model.SudokuCell.*;
+
+/**
+ * Remembers the hints generated for recently seen fields. Hints only depend on the digits in the
+ * cells and the hint mode, so a page refresh or a switch back to a mode shown before gets them
+ * without running any technique. Plain candidates are not worth caching, they are kept up to date
+ * with every digit change anyway. Fields are told apart by a 128-bit hash of their digits, which
+ * makes a collision far less likely than any other failure of the server.
+ */
+public class HintCache {
+    private static final int KEPT_BITS = HINT_MASK | HINT_INCONSISTENCE;
+
+    private final StripedLruCache<Key, int[]> hints;
+
+    public HintCache(int maxFields, long idleMinutes) {
+        hints = new StripedLruCache<>(maxFields, idleMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Same as {@link SudokuField#generateHints(HintMode)}.
+     */
+    public void generateHints(SudokuField field, HintMode hintMode) {
+        if (hintMode != HintMode.SMART && hintMode != HintMode.ADVANCED) {    // Cheaper than a lookup
+            field.generateHints(hintMode);
+            return;
+        }
+
+        final int[] cells = field.cells;
+        final Key key = Key.of(cells, hintMode);
+        final int[] cached = hints.get(key);
+        if (cached != null) {
+            for (int i = 0; i < 81; i++)
+                cells[i] = cells[i] & ~KEPT_BITS | cached[i];
+            return;
+        }
+
+        field.generateHints(hintMode);
+        final int[] generated = new int[81];
+        for (int i = 0; i < 81; i++)
+            generated[i] = cells[i] & KEPT_BITS;
+        hints.put(key, generated);
+    }
+
+    public long getHits() {
+        return hints.getHits();
+    }
+
+    public long getMisses() {
+        return hints.getMisses();
+    }
+
+    public long getEvictions() {
+        return hints.getEvictions();
+    }
+
+    public int size() {
+        return hints.size();
+    }
+
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    static final class Key {
+        private static final long SEED_HIGH = 0x9E3779B97F4A7C15L;
+        private static final long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+
+        final long high;
+        final long low;
+
+        // Digits are packed 16 to a word, each word mixed into two independently seeded hashes
+        static Key of(int[] cells, HintMode hintMode) {
+            long high = SEED_HIGH ^ hintMode.ordinal();
+            long low = SEED_LOW ^ hintMode.ordinal();
+            for (int start = 0; start < 81; start += 16) {
+                long word = 0;
+                for (int i = start; i < Math.min(start + 16, 81); i++)
+                    word = word << 4 | getDefValue(cells[i]);
+                high = mix(high ^ word) + start;
+                low = mix(low ^ Long.rotateLeft(word, 29)) ^ start;
+            }
+            return new Key(high, low);
+        }
+
+        private static long mix(long h) {          // MurmurHash3 finalizer
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            return h ^ h >>> 33;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package model;
 
 public enum HintMode {
-    OFF, ON, SMART, MANUAL;
+    OFF, ON, SMART, ADVANCED, MANUAL;
 
     public static HintMode of(String mode) {
         try {
@@ -0,0 +1,56 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies the techniques of a hint mode, cheapest first, to the candidates of a field. Whenever a
+ * technique eliminates something, the pipeline starts over from the first one, until a full pass
+ * changes nothing or MAX_RESTARTS is reached. The first technique is expected to reach its own
+ * fixpoint, so it is not re-run just because it changed something.
+ */
+public final class HintPipeline {
+    private static final int MAX_RESTARTS = 32;
+
+    private static final HintTechnique ALL_NAKED_SUBSETS = new NakedSubsets("naked_and_hidden_subsets", true);
+    private static final HintTechnique NAKED_SUBSETS = new NakedSubsets("naked_subsets", false);
+    private static final HintTechnique HIDDEN_SUBSETS = new HiddenSubsets();
+    private static final HintTechnique POINTING = new PointingCandidates();
+    private static final HintTechnique BOX_LINE = new BoxLineReduction();
+    private static final HintTechnique X_WING = new XWing();
+
+    private static final List<HintTechnique> TECHNIQUES = Collections.unmodifiableList(
+            Arrays.asList(ALL_NAKED_SUBSETS, NAKED_SUBSETS, HIDDEN_SUBSETS, POINTING, BOX_LINE, X_WING));
+
+    private static final Map<HintMode, HintTechnique[]> BY_MODE = new EnumMap<>(HintMode.class);
+
+    static {
+        BY_MODE.put(HintMode.SMART, new HintTechnique[]{ALL_NAKED_SUBSETS});
+        BY_MODE.put(HintMode.ADVANCED, new HintTechnique[]{NAKED_SUBSETS, HIDDEN_SUBSETS, POINTING, BOX_LINE, X_WING});
+    }
+
+    private HintPipeline() {
+    }
+
+    /**
+     * @return all techniques, for their counters
+     */
+    public static List<HintTechnique> techniques() {
+        return TECHNIQUES;
+    }
+
+    static void run(SudokuField field, HintMode mode) {
+        final HintTechnique[] techniques = BY_MODE.get(mode);
+        if (techniques == null) return;
+
+        int restarts = 0;
+        for (int i = 0; i < techniques.length; i++)
+            if (techniques[i].apply(field) && i > 0) {
+                if (++restarts > MAX_RESTARTS) return;
+                i = -1;
+            }
+    }
+}
@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * Working space of the hint techniques, owned by a field so that generating hints allocates nothing.
+ * Every entry stands for one indefinite cell, or one digit, of the block being examined.
+ */
+class HintScratch {
+    final int[] cells = new int[9];
+    final short[] hints = new short[9];
+    final short[] previousHints = new short[9];
+    final int[] digits = new int[9];
+    final int[] positions = new int[9];
+}
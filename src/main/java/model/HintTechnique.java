@@ -0,0 +1,54 @@
+package model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A way of eliminating candidates from the hints of a field. Techniques are stateless and shared
+ * by all fields; each one counts how often it ran and how many candidates it removed.
+ */
+public abstract class HintTechnique {
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder eliminations = new LongAdder();
+
+    HintTechnique(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return true if any candidate was eliminated
+     */
+    final boolean apply(SudokuField field) {
+        invocations.increment();
+        final int eliminated = eliminate(field);
+        eliminations.add(eliminated);
+        return eliminated > 0;
+    }
+
+    /**
+     * Removes candidates from indefinite cells of the field; definite cells keep their hints.
+     *
+     * @return the number of candidates removed
+     */
+    abstract int eliminate(SudokuField field);
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getEliminations() {
+        return eliminations.sum();
+    }
+
+    // Removes the digits in mask from an indefinite cell
+    static int eliminate(int[] cells, int index, int mask) {
+        final int removed = cells[index] & mask & SudokuCell.HINT_MASK;
+        if (removed == 0 || SudokuCell.isDefinite(cells[index])) return 0;
+        cells[index] &= ~removed;
+        return Integer.bitCount(removed);
+    }
+}
@@ -4,4 +4,8 @@ public class InvalidFieldDataException extends Exception {
     InvalidFieldDataException(Throwable cause) {
         super(cause);
     }
+
+    InvalidFieldDataException(String message) {
+        super(message);
+    }
 }
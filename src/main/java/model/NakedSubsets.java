@@ -0,0 +1,116 @@
+package model;
+
+import static model.SudokuCell.*;
+import static model.SudokuConstants.CELL_BLOCK_TABLE;
+import static model.SudokuConstants.SUDOKU_BLOCK_INDEX;
+import static model.util.Combinatorics.BIT_COUNT;
+import static model.util.Combinatorics.SUBSET_MASKS;
+
+/**
+ * If the candidates of k cells in a block add up to only k digits, those digits go to these cells
+ * and no other cell of the block can have them. Fewer than k digits make the block inconsistent.
+ * <p>
+ * A naked subset of k cells leaves a hidden subset in the other n-k, and the other way round.
+ * Examining groups of all sizes finds both kinds; up to half the indefinite cells of a block
+ * finds the naked ones only, leaving the rest to {@link HiddenSubsets}.
+ */
+class NakedSubsets extends HintTechnique {
+    private final boolean allGroupSizes;
+
+    NakedSubsets(String name, boolean allGroupSizes) {
+        super(name);
+        this.allGroupSizes = allGroupSizes;
+    }
+
+    /**
+     * Sweeps block by block until nothing changes. Only blocks whose candidates changed since they
+     * were last examined are swept again; examining any other block would reproduce its previous
+     * outcome, so the result is the same as re-sweeping all 27.
+     * <p>
+     * The indefinite cells of a block are numbered 0..n-1 and their candidates copied to a scratch
+     * buffer, so that a group of cells is a bitmask from SUBSET_MASKS and its union a few ORs.
+     */
+    @Override
+    int eliminate(SudokuField field) {
+        final int[] cells = field.cells;
+        final int[] indefinite = field.scratch.cells;
+        final short[] hints = field.scratch.hints;
+        final short[] previousHints = field.scratch.previousHints;
+        final int candidatesBefore = countCandidates(cells);
+        int dirtyBlocks = (1 << 27) - 1;
+
+        for (boolean updated = true; updated; ) {
+            updated = false;
+            blockLoop:
+            for (int block = 0; block < 27; block++) {
+                if ((dirtyBlocks & 1 << block) == 0) continue;
+                dirtyBlocks &= ~(1 << block);
+
+                final int[] blockIndex = SUDOKU_BLOCK_INDEX[block];
+                int numIndefs = 0;
+                for (int index : blockIndex)
+                    if (!isDefinite(cells[index])) {
+                        indefinite[numIndefs] = index;
+                        hints[numIndefs] = previousHints[numIndefs] = (short) hintValue(cells[index]);
+                        numIndefs++;
+                    }
+                final int allIndefs = (1 << numIndefs) - 1;
+                final int maxGroupSize = allGroupSizes ? numIndefs - 1 : numIndefs / 2;
+
+                for (int groupSize = 1; groupSize <= maxGroupSize; groupSize++) {
+                    final int[] groups = SUBSET_MASKS[numIndefs][groupSize];
+                    for (int group : groups) {
+                        int combinedBitsInGroup = 0;
+                        for (int g = group; g != 0; g &= g - 1)
+                            combinedBitsInGroup |= hints[Integer.numberOfTrailingZeros(g)];
+
+                        int nSet = BIT_COUNT[combinedBitsInGroup];
+                        if (nSet < groupSize) {
+                            markCellsAsBad(cells, blockIndex);
+                            dirtyBlocks |= storeHints(cells, indefinite, hints, previousHints, numIndefs);
+                            continue blockLoop;
+                        }
+                        if (nSet == groupSize)              // Set bits are exhausted by this combination of cells
+                            for (int rest = allIndefs & ~group; rest != 0; rest &= rest - 1)
+                                hints[Integer.numberOfTrailingZeros(rest)] &= ~combinedBitsInGroup;
+                    }
+
+                }
+                final int changed = storeHints(cells, indefinite, hints, previousHints, numIndefs);
+                dirtyBlocks |= changed;
+                updated |= changed != 0;
+            }
+        }
+        return candidatesBefore - countCandidates(cells);
+    }
+
+    /**
+     * Writes the candidates of a block back to its cells.
+     *
+     * @return bitmask of the blocks that contain a cell whose candidates changed
+     */
+    private static int storeHints(int[] cells, int[] blockCells, short[] hints, short[] previousHints, int count) {
+        int changed = 0;
+        for (int i = 0; i < count; i++) {
+            if (hints[i] == previousHints[i]) continue;
+            final int index = blockCells[i];
+            cells[index] = cells[index] & ~HINT_MASK | hints[i];
+            for (int block : CELL_BLOCK_TABLE[index])
+                changed |= 1 << block;
+        }
+        return changed;
+    }
+
+    private static int countCandidates(int[] cells) {
+        int count = 0;
+        for (int value : cells)
+            if (!isDefinite(value)) count += BIT_COUNT[hintValue(value)];
+        return count;
+    }
+
+    static void markCellsAsBad(int[] cells, int[] blockIndex) {
+        for (int i : blockIndex) {
+            cells[i] |= HINT_INCONSISTENCE;
+        }
+    }
+}
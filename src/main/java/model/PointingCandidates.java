@@ -0,0 +1,46 @@
+package model;
+
+import static model.SudokuCell.hintBit;
+import static model.SudokuCell.isDefinite;
+import static model.SudokuConstants.CELL_BLOCK_TABLE;
+import static model.SudokuConstants.SUDOKU_BLOCK_INDEX;
+
+/**
+ * If a digit can only go to one row or column within a box, it cannot go anywhere else in that
+ * row or column (pointing pairs and triples).
+ */
+class PointingCandidates extends HintTechnique {
+    PointingCandidates() {
+        super("pointing");
+    }
+
+    @Override
+    int eliminate(SudokuField field) {
+        final int[] cells = field.cells;
+        int eliminated = 0;
+
+        for (int box = 18; box < 27; box++)
+            for (int digit = 1; digit <= 9; digit++) {
+                final int bit = hintBit(digit);
+                int rows = 0;
+                int columns = 0;
+                for (int index : SUDOKU_BLOCK_INDEX[box])
+                    if (!isDefinite(cells[index]) && (cells[index] & bit) != 0) {
+                        rows |= 1 << CELL_BLOCK_TABLE[index][0];
+                        columns |= 1 << CELL_BLOCK_TABLE[index][1];
+                    }
+                if (Integer.bitCount(rows) == 1)
+                    eliminated += eliminateOutsideBox(cells, Integer.numberOfTrailingZeros(rows), box, bit);
+                if (Integer.bitCount(columns) == 1)
+                    eliminated += eliminateOutsideBox(cells, Integer.numberOfTrailingZeros(columns), box, bit);
+            }
+        return eliminated;
+    }
+
+    private static int eliminateOutsideBox(int[] cells, int line, int box, int bit) {
+        int eliminated = 0;
+        for (int index : SUDOKU_BLOCK_INDEX[line])
+            if (CELL_BLOCK_TABLE[index][2] != box) eliminated += eliminate(cells, index, bit);
+        return eliminated;
+    }
+}
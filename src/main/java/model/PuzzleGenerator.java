@@ -0,0 +1,62 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Produces minimal puzzles: every puzzle has exactly one solution, and removing any of its clues
+ * would admit more. Instances are not thread-safe.
+ */
+public class PuzzleGenerator {
+    private final Random random;
+    private final SudokuSolver solver = new SudokuSolver();
+    private final int[] order = new int[81];
+
+    public PuzzleGenerator(Random random) {
+        this.random = random;
+        for (int i = 0; i < 81; i++)
+            order[i] = i;
+    }
+
+    /**
+     * @return 81 digits in row-major order, 0 for empty cells
+     */
+    public int[] generate() {
+        final int[] digits = randomSolution();
+
+        // A clue that cannot go when tried cannot go later either: fewer clues only allow more solutions
+        shuffle(order);
+        for (int index : order) {
+            final int clue = digits[index];
+            digits[index] = 0;
+            if (solver.countSolutions(digits, 2) != 1) digits[index] = clue;
+        }
+        return digits;
+    }
+
+    public Difficulty rate(int[] digits) {
+        solver.countSolutions(digits, 1);
+        return Difficulty.rate(solver.getGuesses());
+    }
+
+    // The three boxes on the diagonal do not constrain each other, so any digits in them can be completed
+    private int[] randomSolution() {
+        final int[] digits = new int[81];
+        final int[] box = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        for (int b = 0; b < 3; b++) {
+            shuffle(box);
+            for (int i = 0; i < 9; i++)
+                digits[(b * 3 + i / 3) * 9 + b * 3 + i % 3] = box[i];
+        }
+        solver.solve(digits);
+        return digits;
+    }
+
+    private void shuffle(int[] array) {
+        for (int i = array.length - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int t = array[i];
+            array[i] = array[j];
+            array[j] = t;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package model;
+
+import static model.SudokuConstants.SUDOKU_BLOCK_INDEX;
+
+public enum SolutionCount {
+    NONE("This field has no solution"),
+    UNIQUE("This field has a unique solution"),
+    MULTIPLE("This field has more than one solution"),
+    UNDETERMINED("This field is too hard to check for a unique solution"),
+    INVALID("This field is not a valid sudoku");
+
+    private final String message;
+
+    SolutionCount(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Counts the solutions of a puzzle, up to two.
+     *
+     * @param digits   81 digits in row-major order, 0 for empty cells
+     * @param maxNodes search nodes to visit at most before giving up
+     */
+    public static SolutionCount count(int[] digits, long maxNodes) {
+        switch (new SudokuSolver().countSolutions(digits, 2, maxNodes)) {
+            case 0:
+                return NONE;
+            case 1:
+                return UNIQUE;
+            case 2:
+                return MULTIPLE;
+            default:
+                return UNDETERMINED;
+        }
+    }
+
+    /**
+     * @param digits 81 digits in row-major order, 0 for empty cells
+     * @return true if a digit repeats in some row, column or box, so that no search is needed to rule the puzzle out
+     */
+    public static boolean hasConflicts(int[] digits) {
+        for (int[] block : SUDOKU_BLOCK_INDEX) {
+            int seen = 0;
+            for (int index : block) {
+                if (digits[index] == 0) continue;
+                final int bit = 1 << digits[index];
+                if ((seen & bit) != 0) return true;
+                seen |= bit;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return null for an unknown name
+     */
+    public static SolutionCount of(String name) {
+        try {
+            return SolutionCount.valueOf(name);
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+}
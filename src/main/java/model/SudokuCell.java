@@ -1,18 +1,19 @@
 package model;
 
-import lombok.AllArgsConstructor;
-
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.stream.IntStream;
 
-@AllArgsConstructor
-public class SudokuCell implements SudokuElement {
+/**
+ * A cell is a single packed int in {@link SudokuField}; these are the operations on it.
+ */
+public final class SudokuCell {
     //                                         /-Color code
     //                              Reserved-\|  /-Definite value or 0
     //              Definite & hardcoded-\   || |  /-"Hint On" bit and possible values (bitmask)
-    private static final int DEFINITE = 0x1_000_0_000;
-    private static final int HARDCODED = 0x3_000_0_000;     // Hardcoded is always definite
+    static final int DEFINITE = 0x1_000_0_000;
+    static final int HARDCODED = 0x3_000_0_000;     // Hardcoded is always definite
     private static final int CLEAR_VAL = 0xFFFF0FFF;
 
     public static final int HINT_MASK = 0x01FF;
@@ -22,59 +23,89 @@ public class SudokuCell implements SudokuElement {
     private static final String COLOR_STYLE_PREFIX = "entry";
     private static final int COLOR_MASK = 0xF0000;
 
-    final int index;
-    int value;
-
-    boolean isDefinite() {
+    // Markup is looked up rather than built: the opening tag by cell index, its attributes by
+    // attributeKey(), the contents by digit or by candidate mask
+    private static final char[][] OPENING_TAGS = IntStream.range(0, 81)
+            .mapToObj(i -> ("<td id=\"" + i + "\" ").toCharArray())
+            .toArray(char[][]::new);
+    private static final char[][] TAG_ATTRIBUTES = IntStream.range(0, 1 << 9)
+            .mapToObj(SudokuCell::attributes)
+            .toArray(char[][]::new);
+    private static final char[][] DIGITS = IntStream.range(0, 16)
+            .mapToObj(d -> String.valueOf(d).toCharArray())
+            .toArray(char[][]::new);
+    private static final char[][] HINTS = IntStream.rangeClosed(0, HINT_MASK)
+            .mapToObj(SudokuCell::hints)
+            .toArray(char[][]::new);
+    private static final char[] CLOSING_TAG = "</td>".toCharArray();
+
+    private SudokuCell() {
+    }
+
+    static boolean isDefinite(int value) {
         return (value & DEFINITE) == DEFINITE;
     }
 
-    private boolean isHardcoded() {
+    static boolean isHardcoded(int value) {
         return (value & HARDCODED) == HARDCODED;
     }
 
-    int getDefValue() {
-        return isDefinite() ? (value >> 12) & 0xF : 0;
+    static int getDefValue(int value) {
+        return isDefinite(value) ? (value >> 12) & 0xF : 0;
     }
 
-    @Override
-    public void appendHtml(StringBuilder builder) {
-        appendOpeningTag(builder);
+    static void appendHtml(StringBuilder builder, int index, int value) {
+        builder.append(OPENING_TAGS[index])
+                .append(TAG_ATTRIBUTES[attributeKey(value)]);
 
-        if (isDefinite())
-            builder.append(getDefValue());
-        else if (isHinted()) {
-            int x = value;
-            for (int i = 1; i < 10; i++) {
-                builder.append((x & 1) > 0 ? i : " ");
-                if (i == 3 || i == 6) builder.append("<br>");
-                x >>= 1;
-            }
-        }
-        builder.append("</td>");
+        if (isDefinite(value))
+            builder.append(DIGITS[getDefValue(value)]);
+        else if (isHinted(value))
+            builder.append(HINTS[hintValue(value)]);
+        builder.append(CLOSING_TAG);
+    }
+
+    /**
+     * The cell as the client renders it, in 20 bits: the candidate mask, the "hint on" and
+     * inconsistent block bits as they are, then the digit, the color code and the hardcoded bit.
+     */
+    static int wireValue(int value) {
+        return value & (HINT_MASK | HINT_ON | HINT_INCONSISTENCE)
+                | getDefValue(value) << 11
+                | (isDefinite(value) ? getColorCode(value) : 0) << 15
+                | (isHardcoded(value) ? 1 : 0) << 19;
     }
 
-    private boolean isHinted() {
+    private static boolean isHinted(int value) {
         return (value & HINT_ON) > 0;
     }
 
-    private void appendOpeningTag(StringBuilder builder) {
-        builder.append("<td id=\"")
-                .append(index)
-                .append("\" ");
+    // Everything the attributes of the opening tag depend on, see attributes(int)
+    private static int attributeKey(int value) {
+        int key = (inconsistentBlock(value) ? 1 : 0)
+                | (isHardcoded(value) ? 2 : 0)
+                | (contradictsHint(value) ? 4 : 0);
+        if (isDefinite(value))
+            key |= 8 | getColorCode(value) << 5;
+        else if (isHinted(value))
+            key |= 16;
+        return key;
+    }
 
+    private static char[] attributes(int key) {
+        StringBuilder builder = new StringBuilder();
         List<String> classList = new ArrayList<>(3);
-        if (inconsistentBlock()) classList.add("badblock");
+        if ((key & 1) != 0) classList.add("badblock");
 
-        if (isHardcoded())
+        if ((key & 2) != 0)
             classList.add("hard");
         else {
             builder.append("onclick=\"cellClick(this)\" ");
 
-            if (contradictsHint()) classList.add("bad");
-            if (isDefinite()) {
-                classList.add(COLOR_STYLE_PREFIX + getColorCode());
-            } else if (isHinted())
+            if ((key & 4) != 0) classList.add("bad");
+            if ((key & 8) != 0) {
+                classList.add(COLOR_STYLE_PREFIX + (key >> 5));
+            } else if ((key & 16) != 0)
                 classList.add("hint");
 
         }
@@ -85,48 +116,57 @@ public class SudokuCell implements SudokuElement {
             builder.append(sj.toString());
         }
 
-        builder.append(">");
+        return builder.append(">").toString().toCharArray();
+    }
+
+    private static char[] hints(int mask) {
+        StringBuilder builder = new StringBuilder(17);
+        for (int i = 1; i < 10; i++) {
+            builder.append((mask & 1) > 0 ? (char) ('0' + i) : ' ');
+            if (i == 3 || i == 6) builder.append("<br>");
+            mask >>= 1;
+        }
+        return builder.toString().toCharArray();
     }
 
-    private boolean inconsistentBlock() {
+    private static boolean inconsistentBlock(int value) {
         return (value & HINT_INCONSISTENCE) > 0;
     }
 
-    private boolean contradictsHint() {       // Not checked for hardcoded cells
-        return (isDefinite() && isHinted()) && (hintBit(getDefValue()) & value) == 0;
+    private static boolean contradictsHint(int value) {       // Not checked for hardcoded cells
+        return (isDefinite(value) && isHinted(value)) && (hintBit(getDefValue(value)) & value) == 0;
     }
 
     static int hardcodedValue(int x) {
         return HARDCODED | (x << 12);
     }
 
-    void setDefiniteValue(int newVal) {
+    static int setDefiniteValue(int value, int newVal) {
         value &= CLEAR_VAL;
-        value = newVal != 0 ? value | DEFINITE | (newVal << 12) : value & ~DEFINITE;
+        return newVal != 0 ? value | DEFINITE | (newVal << 12) : value & ~DEFINITE;
     }
 
-    void reset() {
-        if (!isHardcoded()) value = 0;
+    static int reset(int value) {
+        return isHardcoded(value) ? value : 0;
     }
 
-    void activateHint() {
-        value |= HINT_ON;
+    static int activateHint(int value) {
+        return value | HINT_ON;
     }
 
     static int hintBit(int value) {
         return 1 << value >> 1;
     }
 
-    int hintValue() {
+    static int hintValue(int value) {
         return value & HINT_MASK;
     }
 
-    public void setColorCode(int colorCode) {
-        value &= ~COLOR_MASK;
-        value |= colorCode << 16;
+    static int setColorCode(int value, int colorCode) {
+        return value & ~COLOR_MASK | colorCode << 16;
     }
 
-    private int getColorCode() {
+    private static int getColorCode(int value) {
         return (value & COLOR_MASK) >> 16;
     }
 }
@@ -1,5 +1,6 @@
 package model;
 
+import java.util.Arrays;
 import java.util.function.IntUnaryOperator;
 
 class SudokuConstants {
@@ -19,8 +20,10 @@ class SudokuConstants {
 
 
     static final int[][][] AFFECTING_CELL_TABLE = generateAffectingCellTable(); // 81 x 3 x 8
+    static final int[][] PEER_TABLE = generatePeerTable();                      // 81 x 20
     static final int[] HTML_WALK_INDEX = generateHtmlTableWalkIndex();          // 81
     static final int[][] SUDOKU_BLOCK_INDEX = generateSudokuBlockIndex();       // 27 x 9
+    static final int[][] CELL_BLOCK_TABLE = generateCellBlockTable();           // 81 x 3
 
 
     private static int[][][] generateAffectingCellTable() {
@@ -46,6 +49,17 @@ class SudokuConstants {
         return table;
     }
 
+    // AFFECTING_CELL_TABLE without the 4 cells every box shares with the row and the column
+    private static int[][] generatePeerTable() {
+        int[][] table = new int[81][];
+        for (int index = 0; index < 81; index++)
+            table[index] = Arrays.stream(AFFECTING_CELL_TABLE[index])
+                    .flatMapToInt(Arrays::stream)
+                    .distinct()
+                    .toArray();
+        return table;
+    }
+
     // Converts row-column indexing of the text representation into box-by-box thorough indexing of the html
     private static int[] generateHtmlTableWalkIndex() {
         int[] index = new int[81];
@@ -70,6 +84,15 @@ class SudokuConstants {
         }
         return blocks;
     }
+
+    // Inverse of SUDOKU_BLOCK_INDEX: numbers of the row, column and box blocks containing each cell
+    private static int[][] generateCellBlockTable() {
+        int[][] table = new int[81][3];
+        for (int block = 0; block < 27; block++)
+            for (int index : SUDOKU_BLOCK_INDEX[block])
+                table[index][block / 9] = block;
+        return table;
+    }
 }
 
 interface BlockCalculator {
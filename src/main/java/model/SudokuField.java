@@ -1,26 +1,24 @@
 package model;
 
-import lombok.Getter;
-
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.function.IntUnaryOperator;
 import java.util.stream.IntStream;
 
 import static model.SudokuCell.*;
-import static model.SudokuConstants.SUDOKU_BLOCK_INDEX;
-import static model.util.Combinatorics.*;
+import static model.SudokuConstants.*;
+
+public class SudokuField implements SudokuElement {
+    final int[] cells;                                      // Packed cell values, see SudokuCell
 
-public class SudokuField implements SudokuContainer {
-    final SudokuCell[] cells = new SudokuCell[81];
+    // Kept up to date by every digit change, so hints never have to walk the whole field
+    private final int[] digitCounts = new int[27 * 9];      // Occurrences of each digit in each block
+    private final int[] usedDigits = new int[27];           // Bitmask of digits present in each block
+    private final int[] candidates = new int[81];           // Digits not used by any peer of the cell
 
-    @Getter
-    private final List<SudokuElement> contents = new ArrayList<>(3);
+    final HintScratch scratch = new HintScratch();
 
     @Override
-    public String getType() {
-        return "tbody";
+    public void appendHtml(StringBuilder builder) {
+        BoardLayout.appendHtml(builder, cells);
     }
 
     boolean isFilled() {
@@ -29,164 +27,197 @@ public class SudokuField implements SudokuContainer {
     }
 
     boolean isValid() {
-        return Arrays.stream(cells)
-                .filter(SudokuCell::isDefinite)
-                .allMatch(cell -> Arrays.stream(SudokuConstants.AFFECTING_CELL_TABLE[cell.index])
+        return IntStream.range(0, 81)
+                .filter(index -> isDefinite(cells[index]))
+                .allMatch(index -> Arrays.stream(SudokuConstants.AFFECTING_CELL_TABLE[index])
                         .flatMapToInt(Arrays::stream)
-                        .mapToObj(i -> cells[i])
-                        .mapToInt(SudokuCell::getDefValue)
-                        .noneMatch(value -> cell.getDefValue() == value)
+                        .map(i -> getDefValue(cells[i]))
+                        .noneMatch(value -> getDefValue(cells[index]) == value)
                 );
     }
 
-    @SuppressWarnings("ConstantConditions")
-    SudokuField(int[] values) {
+    SudokuField(int[] values) {         // Takes ownership of the array
         assert values.length == 81;
+        cells = values;
+        countDigits();
+    }
 
-        SudokuContainer smallRow = null;
-        SudokuContainer box = null;
-        SudokuContainer bigCell;
-        SudokuContainer bigRow = null;
+    private SudokuField(SudokuField original) {
+        cells = original.cells.clone();
+        System.arraycopy(original.digitCounts, 0, digitCounts, 0, digitCounts.length);
+        System.arraycopy(original.usedDigits, 0, usedDigits, 0, usedDigits.length);
+        System.arraycopy(original.candidates, 0, candidates, 0, candidates.length);
+    }
 
-        for (int i = 0; i < 81; i++) {
-            if (i % 27 == 0) {
-                bigRow = new SudokuContainerImpl("tr");
-                contents.add(bigRow);
-            }
-            if (i % 9 == 0) {
-                bigCell = new SudokuContainerImpl("td");
-                box = new SudokuContainerImpl("table");
-                bigCell.getContents().add(box);
-                bigRow.getContents().add(bigCell);
-            }
-            if (i % 3 == 0) {
-                smallRow = new SudokuContainerImpl("tr");
-                box.getContents().add(smallRow);
-            }
-            int ix = SudokuConstants.HTML_WALK_INDEX[i];
-            cells[ix] = new SudokuCell(ix, values[ix]);
-            smallRow.getContents().add(cells[ix]);
+    public SudokuField copy() {
+        return new SudokuField(this);
+    }
+
+    private void countDigits() {
+        Arrays.fill(digitCounts, 0);
+        Arrays.fill(usedDigits, 0);
+        for (int i = 0; i < 81; i++)
+            addDigit(i, getDefValue(cells[i]));
+        for (int i = 0; i < 81; i++)
+            candidates[i] = calculateCandidates(i);
+    }
+
+    private void addDigit(int index, int digit) {
+        if (digit == 0) return;
+        for (int block : CELL_BLOCK_TABLE[index]) {
+            digitCounts[block * 9 + digit - 1]++;
+            usedDigits[block] |= hintBit(digit);
         }
     }
 
+    private void removeDigit(int index, int digit) {
+        if (digit == 0) return;
+        for (int block : CELL_BLOCK_TABLE[index])
+            if (--digitCounts[block * 9 + digit - 1] == 0) usedDigits[block] &= ~hintBit(digit);
+    }
+
+    // The cell's own digit only counts as used if it repeats somewhere among its peers
+    private int calculateCandidates(int index) {
+        final int[] blocks = CELL_BLOCK_TABLE[index];
+        int used = usedDigits[blocks[0]] | usedDigits[blocks[1]] | usedDigits[blocks[2]];
+
+        final int digit = getDefValue(cells[index]);
+        if (digit != 0 && digitCounts[blocks[0] * 9 + digit - 1] == 1
+                && digitCounts[blocks[1] * 9 + digit - 1] == 1
+                && digitCounts[blocks[2] * 9 + digit - 1] == 1)
+            used &= ~hintBit(digit);
+        return HINT_MASK & ~used;
+    }
+
+    private void setDigit(int index, int digit) {
+        final int oldDigit = getDefValue(cells[index]);
+        cells[index] = setDefiniteValue(cells[index], digit);
+        if (digit == oldDigit) return;
+
+        removeDigit(index, oldDigit);
+        addDigit(index, digit);
+        candidates[index] = calculateCandidates(index);
+        for (int peer : PEER_TABLE[index])
+            candidates[peer] = calculateCandidates(peer);
+    }
+
     public String serialize() {
-        return FieldLoader.encode(i -> cells[i].value);
+        return FieldLoader.encode(i -> cells[i], true);
+    }
+
+    /**
+     * Leaves out the candidate masks unless the hint mode keeps them from being recalculated.
+     */
+    public String serialize(HintMode hintMode) {
+        return FieldLoader.encode(i -> cells[i], hintMode == HintMode.MANUAL);
+    }
+
+    /**
+     * @return 3 bytes per cell in index order, each a big-endian {@link SudokuCell#wireValue(int)}
+     */
+    public byte[] toWireFormat() {
+        final byte[] bytes = new byte[81 * 3];
+        for (int i = 0; i < 81; i++) {
+            final int value = wireValue(cells[i]);
+            bytes[i * 3] = (byte) (value >> 16);
+            bytes[i * 3 + 1] = (byte) (value >> 8);
+            bytes[i * 3 + 2] = (byte) value;
+        }
+        return bytes;
     }
 
     public void setCellValue(String cell, String value, int colorCode) {
         try {
-            int cellNum = Integer.parseInt(cell);
-            if (cellNum < 0 || cellNum > 80) return;
-            int val = value.equals("") ? 0 : Integer.parseInt(value);
-
-            if (val < 0 || val > 9) return;
-            cells[cellNum].setDefiniteValue(val);
-            cells[cellNum].setColorCode(colorCode);
+            setCellValue(Integer.parseInt(cell), value.equals("") ? 0 : Integer.parseInt(value), colorCode);
         } catch (NumberFormatException ignored) {
         }
     }
 
-    public void generateHints(HintMode hintMode) {
-        IntUnaryOperator hintByIndex;
+    /**
+     * Ignored unless the cell is 0..80 and the digit 0..9, 0 to clear the cell.
+     */
+    public void setCellValue(int cell, int digit, int colorCode) {
+        if (cell < 0 || cell > 80 || digit < 0 || digit > 9) return;
+        setDigit(cell, digit);
+        cells[cell] = setColorCode(cells[cell], colorCode);
+    }
+
+    /**
+     * Replaces every non-hardcoded cell with the solution derived from the hardcoded cells.
+     * Cells the user already filled in correctly keep their color.
+     *
+     * @return false if the hardcoded cells admit no solution; the field is left untouched then
+     */
+    public boolean solve(int colorCode) {
+        int[] digits = new int[81];
+        for (int i = 0; i < 81; i++)
+            if (isHardcoded(cells[i])) digits[i] = getDefValue(cells[i]);
+
+        if (!new SudokuSolver().solve(digits)) return false;
+
+        for (int i = 0; i < 81; i++) {
+            if (isHardcoded(cells[i]) || getDefValue(cells[i]) == digits[i]) continue;
+            setDigit(i, digits[i]);
+            cells[i] = setColorCode(cells[i], colorCode);
+        }
+        return true;
+    }
+
+    /**
+     * Counts the solutions the hardcoded cells admit, up to two.
+     *
+     * @param maxNodes search nodes to visit at most before giving up
+     */
+    public SolutionCount countSolutions(long maxNodes) {
+        return SolutionCount.count(getHardcodedDigits(), maxNodes);
+    }
 
+    /**
+     * @return 81 digits in row-major order, 0 for cells that are not hardcoded
+     */
+    public int[] getHardcodedDigits() {
+        int[] digits = new int[81];
+        for (int i = 0; i < 81; i++)
+            if (isHardcoded(cells[i])) digits[i] = getDefValue(cells[i]);
+        return digits;
+    }
+
+    public void generateHints(HintMode hintMode) {
         unmarkAllCellsAsBad();
 
         switch (hintMode) {
             case ON:
-                hintByIndex = this::calculateHintedValue;
-                break;
             case SMART:
-                generateSmartHints();
-                return;
+            case ADVANCED:
+                for (int i = 0; i < 81; i++)
+                    cells[i] = cells[i] & ~HINT_MASK | candidates[i];
+                HintPipeline.run(this, hintMode);
+                break;
             case OFF:
-                hintByIndex = i -> cells[i].value & ~HINT_ON;
+                for (int i = 0; i < 81; i++)
+                    cells[i] &= ~HINT_ON;
                 break;
             case MANUAL:
             default:
-                return;
-        }
-        for (int i = 0; i < 81; i++)
-            cells[i].value = hintByIndex.applyAsInt(i);
-    }
-
-    private int calculateHintedValue(int index) {
-        int val = cells[index].value | HINT_MASK;
-        int used = 0;
-        for (int[] block : SudokuConstants.AFFECTING_CELL_TABLE[index])
-            for (int j : block)
-                used |= hintBit(cells[j].getDefValue());
-        return val & ~used;
-    }
-
-
-    private void generateSmartHints() {
-        generateHints(HintMode.ON);
-
-        final List<SudokuCell> indefiniteInCurrentBlock = new ArrayList<>(9);
-        final List<Integer> previousValues = new ArrayList<>(9);
-
-        for (boolean updated = true; updated; ) {
-            updated = false;
-            blockLoop:
-            for (int[] blockIndex : SUDOKU_BLOCK_INDEX) {
-                indefiniteInCurrentBlock.clear();
-                previousValues.clear();
-                for (int index : blockIndex)
-                    if (!cells[index].isDefinite()) {
-                        indefiniteInCurrentBlock.add(cells[index]);
-                        previousValues.add(cells[index].value);
-                    }
-
-                int numIndefs = indefiniteInCurrentBlock.size();
-                for (int groupSize = 1; groupSize < numIndefs; groupSize++) {
-                    final int[][] combinations = COMBINATIONS[numIndefs][groupSize];
-                    final int[][] complements = ANTI_COMBINATIONS[numIndefs][groupSize];
-                    for (int combinationIndex = 0; combinationIndex < combinations.length; combinationIndex++) {
-                        final int combinedBitsInGroup = IntStream.of(combinations[combinationIndex])
-                                .mapToObj(indefiniteInCurrentBlock::get)
-                                .mapToInt(SudokuCell::hintValue)
-                                .reduce(0, (x, y) -> x | y);
-                        int nSet = BIT_COUNT[combinedBitsInGroup];
-                        if (nSet < groupSize) {
-                            markCellsAsBad(blockIndex);
-                            continue blockLoop;
-                        }
-                        if (nSet == groupSize) {            // Set bits are exhausted by this combination of cells
-                            int antiBits = ~combinedBitsInGroup;
-                            IntStream.of(complements[combinationIndex])
-                                    .mapToObj(indefiniteInCurrentBlock::get)
-                                    .forEach(sudokuCell -> sudokuCell.value &= antiBits);
-                        }
-                    }
-
-                }
-                for (int indef = 0; indef < numIndefs; indef++)
-                    updated |= indefiniteInCurrentBlock.get(indef).value != previousValues.get(indef);
-            }
-        }
-    }
-
-    private void markCellsAsBad(int[] blockIndex) {
-        for (int i : blockIndex) {
-            cells[i].value |= HINT_INCONSISTENCE;
         }
     }
 
     private void unmarkAllCellsAsBad() {
-        for (SudokuCell cell : cells)
-            cell.value &= ~HINT_INCONSISTENCE;
+        for (int i = 0; i < 81; i++)
+            cells[i] &= ~HINT_INCONSISTENCE;
     }
 
     boolean valuesEqual(SudokuField f) {
-        return IntStream.range(0, 81).allMatch(i -> cells[i].getDefValue() == f.cells[i].getDefValue());
+        return IntStream.range(0, 81).allMatch(i -> getDefValue(cells[i]) == getDefValue(f.cells[i]));
     }
 
     public void reset() {
-        Arrays.stream(cells).forEach(SudokuCell::reset);
+        Arrays.setAll(cells, i -> SudokuCell.reset(cells[i]));
+        countDigits();
     }
 
     public void activateHints() {
-        Arrays.stream(cells).forEach(SudokuCell::activateHint);
+        Arrays.setAll(cells, i -> activateHint(cells[i]));
     }
 
 }
@@ -0,0 +1,193 @@
+package model;
+
+import java.util.Arrays;
+
+import static model.SudokuConstants.CELL_BLOCK_TABLE;
+import static model.SudokuConstants.SUDOKU_BLOCK_INDEX;
+import static model.util.Combinatorics.BIT_COUNT;
+
+/**
+ * Backtracking solver working on primitive digit masks instead of {@link SudokuCell} objects.
+ * All search state lives in preallocated arrays, so a search node costs no allocation.
+ * Instances are reusable but not thread-safe.
+ */
+public class SudokuSolver {
+    private static final int ALL_DIGITS = SudokuCell.HINT_MASK;
+
+    private final int[] grid = new int[81];         // Digit masks, 0 for empty cells
+    private final int[] used = new int[27];         // Digit masks of rows, columns and boxes
+    private final int[] empty = new int[81];        // Empty cells; [depth, emptyCount) are still unfilled
+    private int emptyCount;
+
+    private int solutionLimit;
+    private int solutionsFound;
+    private int guesses;
+    private long nodesLeft;
+
+    /**
+     * Solves the puzzle in place.
+     *
+     * @param digits 81 digits in row-major order, 0 for empty cells
+     * @return true if a solution was found and written into {@code digits}, false if the puzzle has none
+     */
+    public boolean solve(int[] digits) {
+        return solve(digits, Long.MAX_VALUE) == 1;
+    }
+
+    /**
+     * Like {@link #solve(int[])}, but gives up after visiting {@code maxNodes} search nodes.
+     *
+     * @return 1 if a solution was written into {@code digits}, 0 if the puzzle has none, -1 if the search gave up first
+     */
+    public int solve(int[] digits, long maxNodes) {
+        final int found = countSolutions(digits, 1, maxNodes);
+        if (found != 1) return found;
+        for (int i = 0; i < 81; i++)
+            digits[i] = Integer.numberOfTrailingZeros(grid[i]) + 1;
+        return 1;
+    }
+
+    /**
+     * Stops searching as soon as {@code limit} solutions are found, so a limit of 2 is enough to tell
+     * a proper puzzle from one with several solutions.
+     *
+     * @param digits 81 digits in row-major order, 0 for empty cells; left unchanged
+     * @return the number of solutions, but no more than {@code limit}
+     */
+    public int countSolutions(int[] digits, int limit) {
+        return countSolutions(digits, limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #countSolutions(int[], int)}, but gives up after visiting {@code maxNodes} search nodes,
+     * which bounds the time spent on puzzles that take long to rule out.
+     *
+     * @return the number of solutions, but no more than {@code limit}, or -1 if the search gave up first
+     */
+    public int countSolutions(int[] digits, int limit, long maxNodes) {
+        solutionLimit = limit;
+        solutionsFound = 0;
+        guesses = 0;
+        nodesLeft = maxNodes;
+        if (seed(digits)) search(0);
+        return nodesLeft < 0 ? -1 : solutionsFound;
+    }
+
+    /**
+     * @return how many digits the last search had to try in cells where neither a naked nor a hidden
+     * single left a single choice; 0 means the puzzle yields to singles alone
+     */
+    public int getGuesses() {
+        return guesses;
+    }
+
+    private boolean seed(int[] digits) {
+        assert digits.length == 81;
+        Arrays.fill(used, 0);
+        emptyCount = 0;
+
+        for (int index = 0; index < 81; index++) {
+            int digit = digits[index];
+            if (digit == 0) {
+                grid[index] = 0;
+                empty[emptyCount++] = index;
+                continue;
+            }
+            int bit = SudokuCell.hintBit(digit);
+            if ((candidates(index) & bit) == 0) return false;   // Clue repeats in a row, column or box
+            place(index, bit);
+        }
+        return true;
+    }
+
+    // Minimum-remaining-values branching: always expand the empty cell with the fewest candidates,
+    // unless some digit has only one place left in a block
+    // Returns true once the solution limit or node budget is reached; in the former case the last
+    // solution is left in the grid
+    private boolean search(int depth) {
+        if (depth == emptyCount) return ++solutionsFound >= solutionLimit;
+        if (--nodesLeft < 0) return true;
+
+        int best = depth;
+        int bestCandidates = 0;
+        int bestCount = 10;
+        for (int k = depth; k < emptyCount; k++) {
+            int cand = candidates(empty[k]);
+            int count = BIT_COUNT[cand];
+            if (count < bestCount) {
+                best = k;
+                bestCandidates = cand;
+                bestCount = count;
+                if (count < 2) break;
+            }
+        }
+        if (bestCount == 0) return false;
+
+        int index = empty[best];
+        boolean guessing = false;
+        if (bestCount > 1) {
+            final int hidden = findHiddenSingle();
+            if (hidden < 0) return false;
+            if (hidden > 0) {
+                index = hidden & 0xFF;
+                bestCandidates = hidden >> 8;
+                for (best = depth; empty[best] != index; ) best++;
+            } else
+                guessing = true;
+        }
+        empty[best] = empty[depth];
+        empty[depth] = index;
+
+        for (int cand = bestCandidates; cand != 0; cand &= cand - 1) {
+            int bit = cand & -cand;
+            if (guessing) guesses++;
+            place(index, bit);
+            if (search(depth + 1)) return true;
+            remove(index, bit);
+        }
+        return false;
+    }
+
+    /**
+     * @return 0 if every block has at least two places for each missing digit, -1 if some digit has
+     * no place at all, otherwise the cell index in the low byte and the digit bit above it
+     */
+    private int findHiddenSingle() {
+        for (int block = 0; block < 27; block++) {
+            int once = 0;
+            int twice = 0;
+            for (int index : SUDOKU_BLOCK_INDEX[block]) {
+                if (grid[index] != 0) continue;
+                int cand = candidates(index);
+                twice |= once & cand;
+                once |= cand;
+            }
+            final int missing = ALL_DIGITS & ~used[block];
+            if ((once & missing) != missing) return -1;
+
+            final int single = once & ~twice;
+            if (single == 0) continue;
+            final int bit = single & -single;
+            for (int index : SUDOKU_BLOCK_INDEX[block])
+                if (grid[index] == 0 && (candidates(index) & bit) != 0) return bit << 8 | index;
+        }
+        return 0;
+    }
+
+    private int candidates(int index) {
+        final int[] blocks = CELL_BLOCK_TABLE[index];
+        return ALL_DIGITS & ~(used[blocks[0]] | used[blocks[1]] | used[blocks[2]]);
+    }
+
+    private void place(int index, int bit) {
+        grid[index] = bit;
+        for (int block : CELL_BLOCK_TABLE[index])
+            used[block] |= bit;
+    }
+
+    private void remove(int index, int bit) {
+        grid[index] = 0;
+        for (int block : CELL_BLOCK_TABLE[index])
+            used[block] &= ~bit;
+    }
+}
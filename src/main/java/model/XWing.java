@@ -0,0 +1,49 @@
+package model;
+
+import static model.SudokuCell.hintBit;
+import static model.SudokuCell.isDefinite;
+import static model.SudokuConstants.SUDOKU_BLOCK_INDEX;
+
+/**
+ * If a digit can only go to the same two columns in each of two rows, it takes these columns in
+ * these rows, and cannot go anywhere else in the two columns. The same holds with rows and columns swapped.
+ */
+class XWing extends HintTechnique {
+    XWing() {
+        super("x_wing");
+    }
+
+    @Override
+    int eliminate(SudokuField field) {
+        final int[] cells = field.cells;
+        final int[] places = field.scratch.positions;           // Per line, bitmask of offsets within it
+        int eliminated = 0;
+
+        for (int digit = 1; digit <= 9; digit++) {
+            final int bit = hintBit(digit);
+            for (int base = 0; base < 18; base += 9) {          // Rows, then columns
+                for (int line = 0; line < 9; line++) {
+                    final int[] lineIndex = SUDOKU_BLOCK_INDEX[base + line];
+                    places[line] = 0;
+                    for (int offset = 0; offset < 9; offset++)
+                        if (!isDefinite(cells[lineIndex[offset]]) && (cells[lineIndex[offset]] & bit) != 0)
+                            places[line] |= 1 << offset;
+                }
+
+                for (int first = 0; first < 8; first++) {
+                    if (Integer.bitCount(places[first]) != 2) continue;
+                    for (int second = first + 1; second < 9; second++) {
+                        if (places[second] != places[first]) continue;
+                        final int crossBase = 9 - base;
+                        for (int p = places[first]; p != 0; p &= p - 1) {
+                            final int[] crossIndex = SUDOKU_BLOCK_INDEX[crossBase + Integer.numberOfTrailingZeros(p)];
+                            for (int line = 0; line < 9; line++)
+                                if (line != first && line != second) eliminated += eliminate(cells, crossIndex[line], bit);
+                        }
+                    }
+                }
+            }
+        }
+        return eliminated;
+    }
+}
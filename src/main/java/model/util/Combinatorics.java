@@ -30,6 +30,14 @@ public class Combinatorics {
      */
     public static final int[][][][] ANTI_COMBINATIONS = reverseCombinationsMatrix(COMBINATIONS);
 
+    /**
+     * COMBINATIONS as bitmasks, in the same order: bit j of SUBSET_MASKS[n][k][i] is set
+     * if j is a member of COMBINATIONS[n][k][i]. The complement within [0, n) stands for ANTI_COMBINATIONS.
+     * <p>
+     * SUBSET_MASKS[0], SUBSET_MASKS[i][0] == null
+     */
+    public static final int[][][] SUBSET_MASKS = generateSubsetMasks(COMBINATIONS);
+
     private static int[] generateFactorials(int maxN) {
         int[] result = new int[maxN + 1];
         int base = 1;
@@ -86,6 +94,20 @@ public class Combinatorics {
     }
 
 
+    private static int[][][] generateSubsetMasks(int[][][][] combinations) {
+        int[][][] masks = new int[combinations.length][][];
+        for (int n = 1; n < combinations.length; n++) {
+            masks[n] = new int[n + 1][];
+            for (int k = 1; k <= n; k++) {
+                masks[n][k] = new int[combinations[n][k].length];
+                for (int i = 0; i < masks[n][k].length; i++)
+                    for (int j : combinations[n][k][i])
+                        masks[n][k][i] |= 1 << j;
+            }
+        }
+        return masks;
+    }
+
     private static int[][][][] reverseCombinationsMatrix(int[][][][] combinations) {
         int maxN = combinations.length - 1;
         int[][][][] matrix = new int[maxN + 1][][][];
@@ -1,29 +1,120 @@
 package template;
 
+import cache.ObjectPool;
 import lombok.RequiredArgsConstructor;
 import model.HintMode;
 import model.SudokuField;
 import org.apache.commons.io.IOUtils;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 @RequiredArgsConstructor
 public class TemplateProcessor {
-    //TODO: make this field static to make template load once at startup instead of each request
-    private static final String template = getMainTemplate();
+    private static final String CONTENT_TYPE = "text/html;charset=utf-8";
+    private static final byte[] CHECKED = " checked".getBytes(StandardCharsets.US_ASCII);
+    private static final String STATUS_MARKER = "<!--status-->";
+
+    // The template split once at startup: FRAGMENTS[0], SLOTS[0], FRAGMENTS[1], ..., SLOTS[n - 1], FRAGMENTS[n]
+    private static final List<byte[]> FRAGMENTS = new ArrayList<>();
+    private static final List<Slot> SLOTS = new ArrayList<>();
+    private static final int FRAGMENTS_LENGTH;
+
+    // Scratch space for as many pages as can be rendered at once, not one per thread that ever rendered one
+    private static final int SCRATCH = 2 * Runtime.getRuntime().availableProcessors();
+    private static final ObjectPool<BoardBuffer> BOARD_BUFFERS = new ObjectPool<>(SCRATCH, BoardBuffer::new, BoardBuffer::free);
+    private static final ObjectPool<MessageDigest> DIGESTS = new ObjectPool<>(SCRATCH, TemplateProcessor::newDigest);
+    private static final byte[] TEMPLATE_DIGEST;       // Goes into every ETag, so that a new template invalidates them
+
+    // A gzip member is a header, raw deflate data and a trailer. The data is made up of segments
+    // flushed to a byte boundary, each compressed on its own, so that the ones of the fixed parts
+    // of the page can be compressed once and only the board and status cost CPU per request.
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final byte[] FINAL_BLOCK = {3, 0};  // An empty last block
+    private static volatile Segments segments;
+
+    static {
+        final String template = getMainTemplate();
+        compile(template);
+        FRAGMENTS_LENGTH = FRAGMENTS.stream().mapToInt(f -> f.length).sum();
+        TEMPLATE_DIGEST = newDigest().digest(template.getBytes(StandardCharsets.UTF_8));
+        segments = new Segments(Deflater.DEFAULT_COMPRESSION);
+    }
 
     private final SudokuField playingField;
     private final HintMode hintMode;
     private final int colorCode;
+    private byte[] status = new byte[0];
+    private int compressFrom = -1;                      // Page length to compress from, never if negative
+    private BoardBuffer rendered;                       // Set by render()
+    private ByteArrayOutputStream compressed;           // Along with it, if the page is to be compressed
 
     public static TemplateProcessor with(SudokuField playingField, HintMode hintMode, int color) {
         return new TemplateProcessor(playingField, hintMode, color);
     }
 
+    /**
+     * @param message markup to show in place of the status marker of the template
+     */
+    public TemplateProcessor withStatus(String message) {
+        status = message.getBytes(StandardCharsets.UTF_8);
+        return this;
+    }
+
+    /**
+     * Has the page gzipped if it is at least {@code minBytes} long.
+     */
+    public TemplateProcessor withCompression(int minBytes) {
+        compressFrom = minBytes;
+        return this;
+    }
+
+    /**
+     * @param level a level of {@link Deflater}, applied to all pages compressed from now on
+     */
+    public static void setCompressionLevel(int level) {
+        segments = new Segments(level);
+    }
+
+    /**
+     * A strong ETag for the page, which only depends on the template and what is passed here,
+     * so it can be checked against If-None-Match before any hints are generated or markup rendered.
+     * Pages with a status message are not meant to be tagged.
+     *
+     * @param fieldState the field serialized for the hint mode, see {@link SudokuField#serialize(HintMode)}
+     */
+    public static String etag(String fieldState, HintMode hintMode, int color) {
+        final MessageDigest digest = DIGESTS.take();
+        digest.update(TEMPLATE_DIGEST);
+        digest.update(fieldState.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) hintMode.ordinal());
+        digest.update((byte) color);
+        final byte[] hash = digest.digest();            // Resets it for the next one
+        DIGESTS.release(digest);
+        return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + '"';
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+
     private static String getMainTemplate() {
         try {
             final ClassLoader classLoader = TemplateProcessor.class.getClassLoader();
@@ -34,27 +125,234 @@ public class TemplateProcessor {
         }
     }
 
-    private static Matcher templateMatcher() {
-        return Pattern.compile("<tbody>.*</tbody>", Pattern.DOTALL).matcher(template);
+    // The board replaces everything between the first <tbody> and the last </tbody>,
+    // a radio button may get checked right after its value attribute, the status replaces its marker
+    private static void compile(String template) {
+        final int boardStart = template.indexOf("<tbody>");
+        final int boardEnd = template.lastIndexOf("</tbody>") + "</tbody>".length();
+        if (boardStart < 0 || boardEnd < boardStart) throw new IllegalStateException("Template has no <tbody> section");
+
+        final Matcher slot = Pattern.compile("type=\"radio\"\\s+name=\"([^\"]*)\"\\s+value=\"([^\"]*)\"|" + STATUS_MARKER).matcher(template);
+        int fragmentStart = 0;
+        boolean boardAdded = false;
+        while (true) {
+            final boolean found = slot.find();
+            if (!boardAdded && (!found || slot.start() >= boardStart)) {
+                addFragment(template.substring(fragmentStart, boardStart), Slot.BOARD);
+                fragmentStart = boardEnd;
+                boardAdded = true;
+            }
+            if (!found) break;
+            if (slot.start() >= boardStart && slot.end() <= boardEnd) continue;
+            if (slot.group(1) == null)
+                addFragment(template.substring(fragmentStart, slot.start()), Slot.STATUS);
+            else
+                addFragment(template.substring(fragmentStart, slot.end()), new Slot(slot.group(1), slot.group(2)));
+            fragmentStart = slot.end();
+        }
+        FRAGMENTS.add(template.substring(fragmentStart).getBytes(StandardCharsets.UTF_8));
     }
 
-    private static Pattern radioPattern(String group, String value) {
-        String regex = "(type=\"radio\"\\s+name=\"" + group + "\"\\s+value=\"" + value + "\")";
-        return Pattern.compile(regex);
+    private static void addFragment(String fragment, Slot slot) {
+        FRAGMENTS.add(fragment.getBytes(StandardCharsets.UTF_8));
+        SLOTS.add(slot);
     }
 
-    public String process() {
-        StringBuilder responseTable = new StringBuilder();
-        playingField.appendHtml(responseTable);
+    /**
+     * Renders and compresses the page in memory, so that {@link #writeTo(HttpServletResponse)} only
+     * has to copy it out. Until then the page holds on to pooled scratch space, so it has to follow.
+     */
+    public TemplateProcessor render() {
+        if (rendered != null) BOARD_BUFFERS.release(rendered);
+        rendered = renderBoard();
+        compressed = compressFrom < 0 || pageLength(rendered) < compressFrom ? null : compress(rendered);
+        return this;
+    }
 
-        String page = templateMatcher().replaceFirst(responseTable.toString());
+    /**
+     * Writes the page into the response with its exact Content-Length, and Content-Encoding if compressed.
+     */
+    public void writeTo(HttpServletResponse response) throws IOException {
+        if (rendered == null) render();
+        try {
+            response.setContentType(CONTENT_TYPE);
+            if (compressed == null) {
+                response.setContentLength(pageLength(rendered));
+                writePage(response.getOutputStream(), rendered);
+            } else {
+                response.setHeader("Content-Encoding", "gzip");
+                response.setContentLength(compressed.size());
+                compressed.writeTo(response.getOutputStream());
+            }
+        } finally {
+            BOARD_BUFFERS.release(rendered);
+            rendered = null;
+            compressed = null;
+        }
+    }
 
-        page = checkRadioButton(page, "hint", hintMode.name());
-        return checkRadioButton(page, "clr", String.valueOf(colorCode));
+    public void writeTo(OutputStream out) throws IOException {
+        final BoardBuffer board = renderBoard();
+        try {
+            if (compressFrom < 0 || pageLength(board) < compressFrom)
+                writePage(out, board);
+            else
+                compress(board).writeTo(out);
+        } finally {
+            BOARD_BUFFERS.release(board);
+        }
+    }
 
+    private BoardBuffer renderBoard() {
+        final BoardBuffer board = BOARD_BUFFERS.take();
+        board.html.setLength(0);
+        playingField.appendHtml(board.html);
+        board.encode();
+        return board;
     }
 
-    private String checkRadioButton(String html, String group, String value) {
-        return radioPattern(group, value).matcher(html).replaceAll("$1 checked");
+    private int pageLength(BoardBuffer board) {
+        int length = FRAGMENTS_LENGTH;
+        for (Slot slot : SLOTS)
+            length += slot == Slot.BOARD ? board.length
+                    : slot == Slot.STATUS ? status.length
+                    : isChecked(slot) ? CHECKED.length : 0;
+        return length;
+    }
+
+    private void writePage(OutputStream out, BoardBuffer board) throws IOException {
+        for (int i = 0; i < SLOTS.size(); i++) {
+            out.write(FRAGMENTS.get(i));
+            final Slot slot = SLOTS.get(i);
+            if (slot == Slot.BOARD)
+                out.write(board.bytes, 0, board.length);
+            else if (slot == Slot.STATUS)
+                out.write(status);
+            else if (isChecked(slot))
+                out.write(CHECKED);
+        }
+        out.write(FRAGMENTS.get(SLOTS.size()));
+    }
+
+    private ByteArrayOutputStream compress(BoardBuffer board) {
+        final Segments segments = TemplateProcessor.segments;
+        final ByteArrayOutputStream out = board.compressed;
+        final CRC32 crc = board.crc;
+        out.reset();
+        crc.reset();
+
+        out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+        for (int i = 0; i < SLOTS.size(); i++) {
+            append(out, crc, FRAGMENTS.get(i), segments.fragments[i]);
+            final Slot slot = SLOTS.get(i);
+            if (slot == Slot.BOARD) {
+                crc.update(board.bytes, 0, board.length);
+                board.deflate(board.bytes, board.length, segments.level);
+            } else if (slot == Slot.STATUS) {
+                crc.update(status);
+                board.deflate(status, status.length, segments.level);
+            } else if (isChecked(slot))
+                append(out, crc, CHECKED, segments.checked);
+        }
+        append(out, crc, FRAGMENTS.get(SLOTS.size()), segments.fragments[SLOTS.size()]);
+        out.write(FINAL_BLOCK, 0, FINAL_BLOCK.length);
+
+        final int length = pageLength(board);
+        final long checksum = crc.getValue();
+        for (int shift = 0; shift < 32; shift += 8)
+            out.write((int) (checksum >>> shift));
+        for (int shift = 0; shift < 32; shift += 8)
+            out.write(length >>> shift);
+        return out;
+    }
+
+    private static void append(ByteArrayOutputStream out, CRC32 crc, byte[] plain, byte[] compressed) {
+        crc.update(plain);
+        out.write(compressed, 0, compressed.length);
+    }
+
+    private boolean isChecked(Slot slot) {
+        switch (slot.group) {
+            case "hint":
+                return slot.value.equals(hintMode.name());
+            case "clr":
+                return slot.value.equals(String.valueOf(colorCode));
+            default:
+                return false;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Slot {
+        static final Slot BOARD = new Slot("", "");
+        static final Slot STATUS = new Slot("", "");
+
+        final String group;
+        final String value;
+    }
+
+    // The fixed parts of the page, compressed
+    private static class Segments {
+        final int level;
+        final byte[][] fragments = new byte[FRAGMENTS.size()][];
+        final byte[] checked;
+
+        Segments(int level) {
+            this.level = level;
+            final Deflater deflater = new Deflater(level, true);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            for (int i = 0; i < fragments.length; i++)
+                fragments[i] = deflate(deflater, buffer, out, FRAGMENTS.get(i));
+            checked = deflate(deflater, buffer, out, CHECKED);
+            deflater.end();
+        }
+
+        private static byte[] deflate(Deflater deflater, byte[] buffer, ByteArrayOutputStream out, byte[] input) {
+            out.reset();
+            syncFlush(deflater, buffer, out, input, input.length);
+            return out.toByteArray();
+        }
+    }
+
+    // Compresses input on its own and flushes it to a byte boundary, nothing at all if it is empty
+    private static void syncFlush(Deflater deflater, byte[] buffer, ByteArrayOutputStream out, byte[] input, int length) {
+        if (length == 0) return;
+        deflater.reset();
+        deflater.setInput(input, 0, length);
+        int written;
+        do {
+            written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            out.write(buffer, 0, written);
+        } while (written == buffer.length || !deflater.needsInput());     // A level change returns early
+    }
+
+    // Scratch space for the generated board; the markup is plain ASCII
+    private static class BoardBuffer {
+        final StringBuilder html = new StringBuilder(8192);
+        byte[] bytes = new byte[8192];
+        int length;
+
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final byte[] deflated = new byte[4096];
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(4096);
+        final CRC32 crc = new CRC32();
+
+        void deflate(byte[] input, int length, int level) {
+            deflater.setLevel(level);
+            syncFlush(deflater, deflated, compressed, input, length);
+        }
+
+        // The deflater's native memory goes with it, not to wait for the garbage collector
+        void free() {
+            deflater.end();
+        }
+
+        void encode() {
+            length = html.length();
+            if (bytes.length < length) bytes = new byte[Math.max(length, bytes.length * 2)];
+            for (int i = 0; i < length; i++)
+                bytes[i] = (byte) html.charAt(i);
+        }
     }
 }
@@ -22,10 +22,86 @@ function numpush(event) {
     submitKey(pushed);
 }
 
+let socket = null;
+
+// Moves go over the socket while it is open, through /api/field or the form otherwise
+function openSocket() {
+    if (!window.WebSocket) return;
+    socket = new WebSocket((location.protocol === "https:" ? "wss://" : "ws://") + location.host + "/ws/field");
+    socket.binaryType = "arraybuffer";
+    socket.onmessage = event => {
+        if (typeof event.data === "string") document.cookie = "field=" + event.data + "; path=/";
+        else renderChanges(event.data);
+    };
+}
+
 function submitKey(x) {
     $('input[name="cell"]').val(NUMPAD.data("id"));
     $('input[name="value"]').val(x);
-    SET_FORM.submit();
+    if (socket && socket.readyState === WebSocket.OPEN) {
+        const color = Number($('input[name="clr"]:checked').val() || 1);
+        socket.send(new Uint8Array([Number(NUMPAD.data("id")), Number(x), color]));
+        detachNumpad();
+        return;
+    }
+    if (!window.fetch) {
+        SET_FORM.submit();
+        return;
+    }
+    fetch("/api/field", {method: "POST", credentials: "same-origin", body: new URLSearchParams(SET_FORM.serialize())})
+        .then(response => {
+            if (!response.ok) throw new Error(response.statusText);
+            return response.arrayBuffer();
+        })
+        .then(renderField)
+        .catch(() => SET_FORM.submit());        // The page route still does it all
+}
+
+// Out of the cell it sits in, before cells get new contents
+function detachNumpad() {
+    NUMPAD.removeClass("popup");
+    $(".main").append(NUMPAD);
+}
+
+// 3 bytes per cell, see SudokuCell.wireValue
+function renderField(buffer) {
+    const bytes = new Uint8Array(buffer);
+    detachNumpad();
+    for (let i = 0; i < 81; i++)
+        renderCell(document.getElementById(i), bytes[i * 3] << 16 | bytes[i * 3 + 1] << 8 | bytes[i * 3 + 2]);
+}
+
+// 4 bytes per changed cell: its index, then as in renderField
+function renderChanges(buffer) {
+    const bytes = new Uint8Array(buffer);
+    detachNumpad();
+    for (let at = 0; at < bytes.length; at += 4)
+        renderCell(document.getElementById(bytes[at]), bytes[at + 1] << 16 | bytes[at + 2] << 8 | bytes[at + 3]);
+}
+
+function renderCell(td, value) {
+    const hints = value & 0x1FF, hinted = (value & 0x200) !== 0, badBlock = (value & 0x400) !== 0;
+    const digit = value >> 11 & 0xF, color = value >> 15 & 0xF, hardcoded = (value & 0x80000) !== 0;
+
+    const classes = [];
+    if (badBlock) classes.push("badblock");
+    if (hardcoded) classes.push("hard");
+    else {
+        if (digit && hinted && (hints & 1 << digit - 1) === 0) classes.push("bad");
+        if (digit) classes.push("entry" + color);
+        else if (hinted) classes.push("hint");
+    }
+    td.className = classes.join(" ");
+
+    if (digit) td.textContent = digit;
+    else if (hinted) {
+        let html = "";
+        for (let d = 1; d <= 9; d++) {
+            html += hints & 1 << d - 1 ? d : " ";
+            if (d === 3 || d === 6) html += "<br>";
+        }
+        td.innerHTML = html;
+    } else td.textContent = "";
 }
 
 $('input[name="hint"]').change(function() {
@@ -46,3 +122,5 @@ $(document).keypress(function(e) {
         if (key >= 0 && key <= 9) submitKey(key);
     }
 });
+
+openSocket();
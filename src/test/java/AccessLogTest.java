@@ -0,0 +1,62 @@
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class AccessLogTest {
+    private static final int TEST_PORT = 5002;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesAndRotates() throws Exception {
+        final Path file = folder.getRoot().toPath().resolve("access.log");
+        final AccessLog log = new AccessLog(16, 1, file, 200, 2);
+
+        final Server server = new Server(TEST_PORT);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) {
+                response.setStatus(target.equals("/missing") ? HttpServletResponse.SC_NOT_FOUND : HttpServletResponse.SC_NO_CONTENT);
+                baseRequest.setHandled(true);
+            }
+        });
+        server.setRequestLog(log);
+        server.start();
+        try {
+            final HttpClient client = HttpClientBuilder.create().build();
+            for (String target : new String[]{"/a?x=1", "/b", "/c", "/missing"})
+                EntityUtils.consume(client.execute(new HttpGet("http://localhost:" + TEST_PORT + target)).getEntity());
+        } finally {
+            server.stop();                  // Writes out what is left
+        }
+
+        assertThat(log.getLogged(), is(4L));
+        assertThat(log.getDropped(), is(0L));
+        // Lines of about 75 bytes, 2 to a file
+        final List<String> older = Files.readAllLines(file.resolveSibling("access.log.1"), StandardCharsets.US_ASCII);
+        final List<String> newer = Files.readAllLines(file, StandardCharsets.US_ASCII);
+        assertThat(Files.exists(file.resolveSibling("access.log.2")), is(false));
+        assertThat(older.size(), is(2));
+        assertThat(older.get(0).matches("127\\.0\\.0\\.1 - - \\[[^]]+] \"GET /a\\?x=1 HTTP/1\\.1\" 204 0 \\d+"), is(true));
+        assertThat(newer.size(), is(2));
+        assertThat(newer.get(1).matches(".* \"GET /missing HTTP/1\\.1\" 404 0 \\d+"), is(true));
+    }
+}
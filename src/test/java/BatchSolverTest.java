@@ -0,0 +1,64 @@
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+
+public class BatchSolverTest {
+    private static final String PUZZLE =
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+    private static final String SOLUTION =
+            "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+
+    @Test
+    public void reportsEveryPuzzleAndSummary() throws Exception {
+        final String input = PUZZLE + "\n\n"
+                + "55" + PUZZLE.substring(2) + "\n"
+                + "123\n"
+                + PUZZLE + "\n";
+        final StringWriter out = new StringWriter();
+        new BatchSolver().run(new BufferedReader(new StringReader(input)), out);
+
+        final String[] lines = out.toString().split("\n");
+        assertThat(lines.length, is(5));
+        final String[] results = Arrays.copyOf(lines, 4);
+        Arrays.sort(results);
+        assertThat(results, is(new String[]{
+                "1 solved " + SOLUTION,
+                "3 unsolvable",
+                "4 invalid Expected 81 cells, got 3",
+                "5 solved " + SOLUTION}));
+        assertThat(lines[4], startsWith("# puzzles=4 solved=2 unsolvable=1 invalid=1 "));
+    }
+
+    @Test
+    public void overlongLineSkippedToNextNewline() throws Exception {
+        final StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 10_000; i++)
+            input.append(PUZZLE);
+        input.append('\n').append(PUZZLE).append("\r\n");
+        final StringWriter out = new StringWriter();
+        new BatchSolver().run(new BufferedReader(new StringReader(input.toString())), out);
+
+        final String[] lines = out.toString().split("\n");
+        assertThat(lines.length, is(3));
+        assertThat(lines[0], is("1 invalid Line longer than 97 characters"));
+        assertThat(lines[1], is("2 solved " + SOLUTION));
+        assertThat(lines[2], startsWith("# puzzles=2 solved=1 unsolvable=0 invalid=1 "));
+    }
+
+    @Test
+    public void nodeBudgetBoundsEachPuzzle() throws Exception {
+        final StringWriter out = new StringWriter();
+        new BatchSolver(10).run(new BufferedReader(new StringReader(PUZZLE + "\n")), out);
+
+        final String[] lines = out.toString().split("\n");
+        assertThat(lines[0], is("1 undetermined"));
+        assertThat(lines[1], startsWith("# puzzles=1 solved=0 unsolvable=0 invalid=0 undetermined=1 failed=0 "));
+    }
+}
@@ -0,0 +1,81 @@
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ComputePoolTest {
+    private static final int TEST_PORT = 5004;
+    private static final String SOLVE_URL = "http://localhost:" + TEST_PORT + "/solve";
+
+    private final ComputePool pool = new ComputePool(1, 1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Server server = new Server(TEST_PORT);
+    private final ExecutorService clients = Executors.newFixedThreadPool(2);
+
+    @Before
+    public void setUp() throws Exception {
+        server.setHandler(new ParsingHandler(server, (req, res) -> new StandardRequestProcessor(req, res) {
+            @Override
+            public void solveField() throws IOException {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                response.getWriter().print(Thread.currentThread().getName());
+            }
+        }, pool));
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        clients.shutdownNow();
+        server.stop();
+        pool.shutdown();
+    }
+
+    @Test
+    public void busyPoolTurnsRequestsDown() throws Exception {
+        final Future<String> running = clients.submit(() -> get(SOLVE_URL));
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+        final Future<String> queued = clients.submit(() -> get(SOLVE_URL));
+        while (pool.queued() == 0) Thread.sleep(5);
+        assertThat(pool.running(), is(1L));
+
+        final HttpResponse rejected = HttpClientBuilder.create().build().execute(new HttpGet(SOLVE_URL));
+        EntityUtils.consume(rejected.getEntity());
+        assertThat(rejected.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+        assertThat(rejected.getFirstHeader("Retry-After").getValue(), is("2"));
+        assertThat(pool.getRejected(), is(1L));
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS), is("compute-1"));
+        assertThat(queued.get(5, TimeUnit.SECONDS), is("compute-1"));
+    }
+
+    private static String get(String url) throws IOException {
+        final HttpClient client = HttpClientBuilder.create().build();
+        return EntityUtils.toString(client.execute(new HttpGet(url)).getEntity());
+    }
+}
@@ -0,0 +1,87 @@
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeException;
+import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletResponse;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class FieldSocketTest {
+    private static final int TEST_PORT = 5001;
+
+    private static final LocalSudokuServer server = new LocalSudokuServer() {
+        @Override
+        int getPort() {
+            return TEST_PORT;
+        }
+    };
+    private static final WebSocketClient client = new WebSocketClient();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        server.run();
+        client.start();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        client.stop();
+        server.server.stop();
+    }
+
+    @Test
+    public void pushesChangedCells() throws Exception {
+        final BlockingQueue<Object> messages = new LinkedBlockingQueue<>();
+        final Session session = client.connect(new WebSocketAdapter() {
+            @Override
+            public void onWebSocketBinary(byte[] payload, int offset, int len) {
+                messages.add(ByteBuffer.wrap(payload, offset, len));
+            }
+
+            @Override
+            public void onWebSocketText(String message) {
+                messages.add(message);
+            }
+        }, new URI("ws://localhost:" + TEST_PORT + "/ws/field")).get(5, TimeUnit.SECONDS);
+
+        final ByteBuffer all = (ByteBuffer) messages.poll(5, TimeUnit.SECONDS);
+        assertThat(all.remaining(), is(81 * 4));
+
+        session.getRemote().sendBytes(ByteBuffer.wrap(new byte[]{0, 8, 2}));        // Default field, cell 0 is empty
+        final ByteBuffer changes = (ByteBuffer) messages.poll(5, TimeUnit.SECONDS);
+        assertThat(changes.remaining(), is(4));
+        assertThat((int) changes.get(), is(0));
+        assertThat(changes.get() << 16 | (changes.get() & 0xFF) << 8 | changes.get() & 0xFF, is(8 << 11 | 2 << 15));
+        assertThat(messages.poll(5, TimeUnit.SECONDS) instanceof String, is(true));     // Cookie value
+
+        session.close();
+    }
+
+    @Test
+    public void refusesOtherOrigins() throws Exception {
+        final ClientUpgradeRequest request = new ClientUpgradeRequest();
+        request.setHeader("Origin", "http://evil.example");
+        try {
+            client.connect(new WebSocketAdapter(), new URI("ws://localhost:" + TEST_PORT + "/ws/field"), request).get(5, TimeUnit.SECONDS);
+            fail("Upgrade accepted");
+        } catch (ExecutionException e) {
+            assertThat(((UpgradeException) e.getCause()).getResponseStatusCode(), is(HttpServletResponse.SC_FORBIDDEN));
+        }
+
+        request.setHeader("Origin", "http://localhost:" + TEST_PORT);
+        client.connect(new WebSocketAdapter(), new URI("ws://localhost:" + TEST_PORT + "/ws/field"), request).get(5, TimeUnit.SECONDS).close();
+    }
+}
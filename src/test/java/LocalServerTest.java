@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -31,6 +33,8 @@ public class LocalServerTest {
 
     private HttpClient httpClient;
 
+    private static volatile SessionStore sessions;     // Fields in cookies unless a test sets one
+
     private final static LocalSudokuServer serverWithLoopback = new LocalSudokuServer() {
         @Override
         int getPort() {
@@ -41,6 +45,11 @@ public class LocalServerTest {
         Handler[] createHandlers() {
             ParsingHandler parsingHandlerWithLoopback = new ParsingHandler(server,
                     (req, res) -> new StandardRequestProcessor(req, res) {
+                        @Override
+                        SessionStore sessions() {
+                            return sessions;
+                        }
+
                         @Override
                         public void loadField() throws IOException {
                             final Part upload;
@@ -64,8 +73,9 @@ public class LocalServerTest {
 
 
     @BeforeClass
-    public static void setUp() {
+    public static void setUp() throws InterruptedException {
         serverWithLoopback.start();
+        serverWithLoopback.join();              // Returns once the server is up
     }
 
     @Before
@@ -80,6 +90,49 @@ public class LocalServerTest {
         assertThat(response.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_OK));
     }
 
+    @Test
+    public void unchangedPageNotSentAgain() throws Exception {
+        HttpResponse first = httpClient.execute(new HttpGet(SERVER_URL));
+        final String etag = first.getFirstHeader("ETag").getValue();
+        IOUtils.toString(first.getEntity().getContent(), StandardCharsets.UTF_8);
+
+        HttpGet conditional = new HttpGet(SERVER_URL);
+        conditional.addHeader("If-None-Match", etag);
+        HttpResponse second = httpClient.execute(conditional);
+        assertThat(second.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_NOT_MODIFIED));
+
+        HttpGet otherColor = new HttpGet(SERVER_URL + "/?clr=2");
+        otherColor.addHeader("If-None-Match", etag);
+        assertThat(httpClient.execute(otherColor).getStatusLine().getStatusCode(), is(HttpServletResponse.SC_OK));
+    }
+
+    @Test
+    public void metricsCountRequests() throws Exception {
+        IOUtils.toString(httpClient.execute(new HttpGet(SERVER_URL + "/?clr=3")).getEntity().getContent(), StandardCharsets.UTF_8);
+
+        HttpResponse response = httpClient.execute(new HttpGet(SERVER_URL + "/metrics"));
+        assertThat(response.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_OK));
+        final String metrics = IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
+        assertThat(metrics.contains("# TYPE sudoku_request_seconds histogram\n"), is(true));
+        assertThat(metrics.matches("(?s).*\nsudoku_request_seconds_count\\{route=\"/\"} [1-9].*"), is(true));
+        assertThat(metrics.matches("(?s).*\nsudoku_phase_seconds_count\\{phase=\"render\"} [1-9].*"), is(true));
+        assertThat(metrics.contains("sudoku_cache_hits_total{cache=\"hints\"}"), is(true));
+    }
+
+    @Test
+    public void serverTimingOnRequest() throws Exception {
+        HttpResponse untimed = httpClient.execute(new HttpGet(SERVER_URL + "/?clr=4"));
+        IOUtils.toString(untimed.getEntity().getContent(), StandardCharsets.UTF_8);
+        assertThat(untimed.containsHeader("Server-Timing"), is(false));
+
+        HttpGet request = new HttpGet(SERVER_URL + "/?clr=4");
+        request.addHeader("X-Server-Timing", "1");
+        HttpResponse timed = httpClient.execute(request);
+        IOUtils.toString(timed.getEntity().getContent(), StandardCharsets.UTF_8);
+        assertThat(timed.getFirstHeader("Server-Timing").getValue()
+                .matches("decode;dur=\\d+\\.\\d{3}, hints;desc=\"OFF\";dur=\\d+\\.\\d{3}, encode;dur=\\d+\\.\\d{3}, render;dur=\\d+\\.\\d{3}"), is(true));
+    }
+
     @Test
     public void multipartFileUpload() throws Exception {
         String rawDataText = "SAMPLE FILE CONTENTS";
@@ -101,4 +154,43 @@ public class LocalServerTest {
         String talkback = IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
         assertThat(talkback, is(rawFileName + "=" + rawDataText));
     }
+
+    @Test
+    public void fieldKeptInSession() throws Exception {
+        sessions = new SessionStore(10, 30);
+        try {
+            final HttpClient client = HttpClientBuilder.create().disableCookieManagement().build();
+            final HttpResponse moved = client.execute(new HttpPost(SERVER_URL + "/api/field?cell=1&value=5"));
+            assertThat(cellDigit(moved, 1), is(5));
+            assertThat(moved.containsHeader("Set-Cookie") && moved.getHeaders("Set-Cookie").length == 1, is(true));
+            final String cookie = moved.getFirstHeader("Set-Cookie").getValue();
+            assertThat(cookie.matches("sid=[A-Za-z0-9_-]{22};.*"), is(true));
+            final List<String> attributes = Arrays.asList(cookie.split(";\\s*"));
+            assertThat(attributes.contains("Path=/"), is(true));
+            assertThat(attributes.contains("HttpOnly"), is(true));
+
+            final HttpGet sameSession = new HttpGet(SERVER_URL + "/api/field");
+            sameSession.addHeader("Cookie", cookie.substring(0, cookie.indexOf(';')));
+            final HttpResponse stored = client.execute(sameSession);
+            assertThat(cellDigit(stored, 1), is(5));
+            assertThat(stored.containsHeader("Set-Cookie"), is(false));
+
+            final HttpGet forgedSession = new HttpGet(SERVER_URL + "/api/field");
+            forgedSession.addHeader("Cookie", "sid=AAAAAAAAAAAAAAAAAAAAAA");
+            final HttpResponse fallback = client.execute(forgedSession);
+            assertThat(cellDigit(fallback, 1), is(0));                  // The default field
+            assertThat(fallback.getFirstHeader("Set-Cookie").getValue().startsWith("sid=AAAAAAAAAAAAAAAAAAAAAA;"), is(false));
+            assertThat(sessions.fields.getHits(), is(1L));              // One lookup per request
+            assertThat(sessions.fields.getMisses(), is(1L));
+        } finally {
+            sessions = null;
+        }
+    }
+
+    private static int cellDigit(HttpResponse response, int cell) throws IOException {
+        assertThat(response.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_OK));
+        final byte[] state = IOUtils.toByteArray(response.getEntity().getContent());
+        final int value = (state[cell * 3] & 0xFF) << 16 | (state[cell * 3 + 1] & 0xFF) << 8 | state[cell * 3 + 2] & 0xFF;
+        return value >> 11 & 0xF;
+    }
 }
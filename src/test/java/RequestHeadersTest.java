@@ -0,0 +1,35 @@
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class RequestHeadersTest {
+    @Test
+    public void negotiatesGzip() {
+        assertThat(RequestHeaders.acceptsGzip((String) null), is(false));
+        assertThat(RequestHeaders.acceptsGzip("identity"), is(false));
+        assertThat(RequestHeaders.acceptsGzip("gzip, deflate, br"), is(true));
+        assertThat(RequestHeaders.acceptsGzip("br;q=1.0, GZIP;q=0.5"), is(true));
+        assertThat(RequestHeaders.acceptsGzip("gzip;q=0, *;q=0.1"), is(false));
+        assertThat(RequestHeaders.acceptsGzip("*;q=0.1, gzip;q=0"), is(false));
+        assertThat(RequestHeaders.acceptsGzip("br, *;q=0.1"), is(true));
+        assertThat(RequestHeaders.acceptsGzip("gzip, *;q=0"), is(true));
+        assertThat(RequestHeaders.acceptsGzip("gzip; q=0.0"), is(false));
+    }
+
+    @Test
+    public void checksOrigin() {
+        assertThat(RequestHeaders.sameOrigin(null, "localhost:8080"), is(true));
+        assertThat(RequestHeaders.sameOrigin("http://localhost:8080", "localhost:8080"), is(true));
+        assertThat(RequestHeaders.sameOrigin("https://Sudoku.example", "sudoku.example"), is(true));
+        assertThat(RequestHeaders.sameOrigin("http://localhost:8081", "localhost:8080"), is(false));
+        assertThat(RequestHeaders.sameOrigin("http://evil.example", "localhost:8080"), is(false));
+        assertThat(RequestHeaders.sameOrigin("null", "localhost:8080"), is(false));
+        assertThat(RequestHeaders.sameOrigin("http://localhost:8080", null), is(false));
+    }
+
+    @Test
+    public void gzipVariantStaysQuoted() {
+        assertThat(RequestHeaders.gzipVariant("\"abc\""), is("\"abc-gzip\""));
+    }
+}
@@ -0,0 +1,49 @@
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ServerConfigTest {
+    private final ServerConfig.ServerConfigBuilder config = ServerConfig.builder()
+            .executor(ServerConfig.Executor.PLATFORM)
+            .maxThreads(16)
+            .minThreads(2)
+            .threadIdleMillis(1000)
+            .queueSize(100)
+            .acceptors(1)
+            .selectors(2)
+            .acceptQueueSize(50)
+            .idleTimeoutMillis(5000);
+
+    @Test
+    public void platformThreadsAndConnector() {
+        final Server server = config.build().createServer(5003);
+
+        final QueuedThreadPool pool = (QueuedThreadPool) server.getThreadPool();
+        assertThat(pool.getMaxThreads(), is(16));
+        assertThat(pool.getMinThreads(), is(2));
+        assertThat(pool.getIdleTimeout(), is(1000));
+
+        final ServerConnector connector = (ServerConnector) server.getConnectors()[0];
+        assertThat(connector.getPort(), is(5003));
+        assertThat(connector.getAcceptors(), is(1));
+        assertThat(connector.getSelectorManager().getSelectorCount(), is(2));
+        assertThat(connector.getAcceptQueueSize(), is(50));
+        assertThat(connector.getIdleTimeout(), is(5000L));
+    }
+
+    @Test
+    public void virtualThreadsWhereAvailable() {
+        final Server server = config.executor(ServerConfig.Executor.VIRTUAL).build().createServer(5003);
+
+        final boolean available = VirtualThreadPool.create() != null;
+        assertThat(server.getThreadPool() instanceof QueuedThreadPool, is(true));        // Acceptor and selector loops
+        final ServerConnector connector = (ServerConnector) server.getConnectors()[0];
+        assertThat(connector.getExecutor() == server.getThreadPool(), is(true));
+        assertThat(connector.getSelectorManager().getExecutor() instanceof VirtualThreadPool, is(available));
+        assertThat(connector.getSelectorManager().getSelectorCount(), is(2));
+    }
+}
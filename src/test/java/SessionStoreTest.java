@@ -0,0 +1,41 @@
+import model.FieldLoader;
+import model.SudokuField;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class SessionStoreTest {
+    private final SessionStore store = new SessionStore(10, 30);
+
+    @Test
+    public void getReturnsIsolatedCopy() {
+        final SudokuField stored = FieldLoader.getDefaultField();
+        final byte[] state = stored.toWireFormat();
+        final String id = store.newId();
+        store.put(id, stored);
+
+        final SudokuField first = store.get(id);
+        first.setCellValue(1, 5, 0);
+        assertThat(first.toWireFormat(), not(state));
+        assertThat(store.get(id).toWireFormat(), is(state));
+        assertThat(stored.toWireFormat(), is(state));
+    }
+
+    @Test
+    public void unknownIdHasNoField() {
+        store.put(store.newId(), FieldLoader.getDefaultField());
+
+        final String forged = store.newId();
+        assertThat(store.get(forged), is(nullValue()));
+    }
+
+    @Test
+    public void idsAreUnguessable() {
+        final String id = store.newId();
+        assertThat(id.matches("[A-Za-z0-9_-]{22}"), is(true));     // 128 random bits, cookie-safe
+        assertThat(store.newId().equals(id), is(false));
+    }
+}
@@ -0,0 +1,49 @@
+import model.FieldLoader;
+import model.SolutionCount;
+import model.SudokuField;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class SolutionCountsTest {
+    private final SolutionCounts counts = new SolutionCounts(100, 10_000);
+
+    @Test
+    public void conflictingCluesAreInvalid() {
+        final int[] digits = new int[81];
+        digits[0] = digits[1] = 5;
+        assertThat(counts.of(FieldLoader.getFieldFromDigits(digits)), is(SolutionCount.INVALID));
+        assertThat(counts.counts.size(), is(0));
+    }
+
+    @Test
+    public void countsRemembered() {
+        assertThat(counts.of(FieldLoader.getDefaultField()), is(SolutionCount.UNIQUE));
+        assertThat(counts.of(FieldLoader.getDefaultField()), is(SolutionCount.UNIQUE));
+        assertThat(counts.counts.getHits(), is(1L));
+    }
+
+    @Test
+    public void sparseFieldsAnsweredQuickly() {
+        final int[] oneClue = new int[81];
+        oneClue[40] = 5;
+        final int[] diagonal = new int[81];
+        for (int i = 0; i < 9; i++)
+            diagonal[i * 10] = i + 1;
+
+        for (int[] digits : new int[][]{new int[81], oneClue, diagonal}) {
+            final SudokuField field = FieldLoader.getFieldFromDigits(digits);
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < 5; run++) {            // Best of a few, not to time class loading or JIT
+                final long start = System.nanoTime();
+                assertThat(counts.of(field), is(SolutionCount.MULTIPLE));
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            assertThat(best < TimeUnit.MILLISECONDS.toNanos(10), is(true));
+        }
+        assertThat(counts.counts.size(), is(0));
+    }
+}
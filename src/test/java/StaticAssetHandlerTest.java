@@ -0,0 +1,136 @@
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class StaticAssetHandlerTest {
+    private static final String CSS = "/extras/table.css";
+    private static final int CSS_LENGTH = 2499;
+
+    private static final Server server = new Server(0);         // Any free port
+    private static String serverUrl;
+
+    // Content stays as sent, encoding headers and all
+    private final HttpClient httpClient = HttpClientBuilder.create().disableContentCompression().build();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        server.setHandler(new StaticAssetHandler("WEB-INF"));
+        server.start();
+        serverUrl = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void loadsAllFiles() {
+        assertThat(new StaticAssetHandler("WEB-INF").size(), is(4));
+    }
+
+    @Test
+    public void identityWithoutAcceptEncoding() throws Exception {
+        final HttpResponse response = httpClient.execute(new HttpGet(serverUrl + CSS));
+        final byte[] body = EntityUtils.toByteArray(response.getEntity());
+
+        assertThat(response.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_OK));
+        assertThat(response.getFirstHeader("Content-Type").getValue(), is("text/css;charset=utf-8"));
+        assertThat(response.getFirstHeader("Content-Length").getValue(), is(String.valueOf(CSS_LENGTH)));
+        assertThat(body.length, is(CSS_LENGTH));
+        assertThat(response.containsHeader("Content-Encoding"), is(false));
+        assertThat(response.getFirstHeader("Vary").getValue(), is("Accept-Encoding"));
+        assertThat(response.getFirstHeader("ETag").getValue().matches("\"[A-Za-z0-9_-]{22}\""), is(true));
+    }
+
+    @Test
+    public void gzipWhenAccepted() throws Exception {
+        final byte[] plain = EntityUtils.toByteArray(httpClient.execute(new HttpGet(serverUrl + CSS)).getEntity());
+
+        final HttpResponse response = httpClient.execute(get(CSS, "Accept-Encoding", "gzip, deflate"));
+        final byte[] body = EntityUtils.toByteArray(response.getEntity());
+
+        assertThat(response.getFirstHeader("Content-Encoding").getValue(), is("gzip"));
+        assertThat(response.getFirstHeader("Vary").getValue(), is("Accept-Encoding"));
+        assertThat(response.getFirstHeader("ETag").getValue().endsWith("-gzip\""), is(true));
+        assertThat(response.getFirstHeader("Content-Length").getValue(), is(String.valueOf(body.length)));
+        assertThat(body.length < CSS_LENGTH, is(true));
+        assertThat(gunzip(body), is(plain));
+
+        final HttpResponse refused = httpClient.execute(get(CSS, "Accept-Encoding", "gzip;q=0, *;q=0.1"));
+        EntityUtils.consume(refused.getEntity());
+        assertThat(refused.containsHeader("Content-Encoding"), is(false));
+    }
+
+    @Test
+    public void unchangedAssetNotSentAgain() throws Exception {
+        final HttpResponse first = httpClient.execute(new HttpGet(serverUrl + CSS));
+        EntityUtils.consume(first.getEntity());
+        final String etag = first.getFirstHeader("ETag").getValue();
+
+        final HttpResponse second = httpClient.execute(get(CSS, "If-None-Match", etag));
+        assertThat(second.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_NOT_MODIFIED));
+        assertThat(second.getEntity() == null, is(true));
+        assertThat(second.getFirstHeader("ETag").getValue(), is(etag));
+
+        final HttpUriRequest otherEncoding = get(CSS, "If-None-Match", etag);
+        otherEncoding.addHeader("Accept-Encoding", "gzip");
+        final HttpResponse third = httpClient.execute(otherEncoding);
+        EntityUtils.consume(third.getEntity());
+        assertThat(third.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_OK));
+    }
+
+    @Test
+    public void headHasNoBody() throws Exception {
+        final HttpResponse response = httpClient.execute(new HttpHead(serverUrl + CSS));
+        assertThat(response.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_OK));
+        assertThat(response.getFirstHeader("Content-Length").getValue(), is(String.valueOf(CSS_LENGTH)));
+        assertThat(response.getEntity() == null, is(true));
+    }
+
+    @Test
+    public void otherMethodsNotAllowed() throws Exception {
+        final HttpResponse response = httpClient.execute(new HttpPost(serverUrl + CSS));
+        EntityUtils.consume(response.getEntity());
+        assertThat(response.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_METHOD_NOT_ALLOWED));
+        assertThat(response.getFirstHeader("Allow").getValue(), is("GET, HEAD"));
+    }
+
+    @Test
+    public void otherPathsLeftToNextHandler() throws Exception {
+        final HttpResponse response = httpClient.execute(new HttpGet(serverUrl + "/extras/missing.css"));
+        EntityUtils.consume(response.getEntity());
+        assertThat(response.getStatusLine().getStatusCode(), is(HttpServletResponse.SC_NOT_FOUND));
+    }
+
+    private HttpUriRequest get(String target, String header, String value) {
+        final HttpGet request = new HttpGet(serverUrl + target);
+        request.addHeader(header, value);
+        return request;
+    }
+
+    private static byte[] gunzip(byte[] gzipped) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+public class ObjectPoolTest {
+    private final AtomicInteger created = new AtomicInteger();
+    private final List<StringBuilder> discarded = new ArrayList<>();
+    private final ObjectPool<StringBuilder> pool = new ObjectPool<>(2, () -> {
+        created.incrementAndGet();
+        return new StringBuilder();
+    }, discarded::add);
+
+    @Test
+    public void reusesReleasedObjects() {
+        final StringBuilder first = pool.take();
+        pool.release(first);
+        assertThat(pool.take(), sameInstance(first));
+        assertThat(created.get(), is(1));
+    }
+
+    @Test
+    public void createsWhenEmptyAndDiscardsWhenFull() {
+        final StringBuilder a = pool.take();
+        final StringBuilder b = pool.take();
+        final StringBuilder c = pool.take();
+        assertThat(created.get(), is(3));
+
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertThat(pool.idle(), is(2));
+        assertThat(discarded.size(), is(1));
+        assertThat(discarded.get(0), sameInstance(c));
+    }
+
+    @Test
+    public void boundedAcrossManyThreads() throws Exception {
+        final Thread[] threads = new Thread[50];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> pool.release(pool.take()));
+            threads[i].start();
+            threads[i].join();
+        }
+        assertThat(created.get(), is(1));
+        assertThat(pool.idle(), is(1));
+    }
+}
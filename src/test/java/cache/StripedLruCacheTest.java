@@ -0,0 +1,44 @@
+package cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class StripedLruCacheTest {
+    private long now;
+    private final StripedLruCache<Integer, String> cache = new StripedLruCache<>(4, 10, TimeUnit.NANOSECONDS, () -> now);
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        // 4 stripes of 1 entry; keys 0 and 4 share a stripe
+        cache.put(0, "a");
+        cache.put(1, "b");
+        assertThat(cache.get(0), is("a"));
+        cache.put(4, "c");
+
+        assertThat(cache.get(0), nullValue());
+        assertThat(cache.get(1), is("b"));
+        assertThat(cache.get(4), is("c"));
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getHits(), is(3L));
+        assertThat(cache.getMisses(), is(1L));
+        assertThat(cache.getEvictions(), is(1L));
+    }
+
+    @Test
+    public void expiresIdleEntries() throws Exception {
+        cache.put(1, "a");
+        cache.put(2, "b");
+        now = 8;
+        assertThat(cache.get(1), is("a"));
+        now = 15;
+        assertThat(cache.get(1), is("a"));
+        assertThat(cache.get(2), nullValue());
+        assertThat(cache.size(), is(1));
+        assertThat(cache.getEvictions(), is(1L));
+    }
+}
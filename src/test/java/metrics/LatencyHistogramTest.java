@@ -0,0 +1,63 @@
+package metrics;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class LatencyHistogramTest {
+    @Test
+    public void bucketsCoverEveryValue() throws Exception {
+        int previous = -1;
+        for (long value = 0; value < 1 << 16; value++) {
+            final int bucket = LatencyHistogram.bucketOf(value);
+            assertThat(bucket == previous || bucket == previous + 1, is(true));
+            assertThat(LatencyHistogram.upperBound(bucket) >= value, is(true));
+            if (bucket != previous && bucket > 0) assertThat(LatencyHistogram.upperBound(bucket - 1), is(value - 1));
+            previous = bucket;
+        }
+        for (int bits = 4; bits < 40; bits++)          // Powers of two start a bucket
+            assertThat(LatencyHistogram.upperBound(LatencyHistogram.bucketOf((1L << bits) - 1)), is((1L << bits) - 1));
+        assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE), is(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void quantilesWithinABucket() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.valueAt(0.99), is(0L));
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i * 1000L);
+
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getSum(), is(500_500_000L));
+        final long median = histogram.valueAt(0.5);
+        assertThat(median >= 500_000 && median < 500_000 * 1.125, is(true));
+        final long p99 = histogram.valueAt(0.99);
+        assertThat(p99 >= 990_000 && p99 < 990_000 * 1.125, is(true));
+        assertThat(histogram.countAtMost((1 << 19) - 1), is(524L));
+    }
+
+    @Test
+    public void prometheusText() throws Exception {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final LatencyHistogram histogram = registry.histogram("test_seconds", "Test time", "route=\"/\"");
+        registry.counter("test_total", "Test count", "", () -> 7);
+        histogram.record(2000);
+        histogram.record(3_000_000_000L);
+
+        final StringWriter out = new StringWriter();
+        registry.writeTo(out);
+        final String text = out.toString();
+        assertThat(text.startsWith("# HELP test_seconds Test time\n# TYPE test_seconds histogram\n"
+                + "test_seconds_bucket{route=\"/\",le=\"1.024E-6\"} 0\n"
+                + "test_seconds_bucket{route=\"/\",le=\"4.096E-6\"} 1\n"), is(true));
+        assertThat(text.contains("test_seconds_bucket{route=\"/\",le=\"1.073741824\"} 1\n"
+                + "test_seconds_bucket{route=\"/\",le=\"4.294967296\"} 2\n"), is(true));
+        assertThat(text.endsWith("test_seconds_bucket{route=\"/\",le=\"+Inf\"} 2\n"
+                + "test_seconds_sum{route=\"/\"} 3.000002\n"
+                + "test_seconds_count{route=\"/\"} 2\n"
+                + "# HELP test_total Test count\n# TYPE test_total counter\ntest_total 7\n"), is(true));
+    }
+}
@@ -0,0 +1,103 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class CanonicalizerTest {
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+    private final Random random = new Random(11);
+
+    @Test
+    public void equivalentPuzzlesShareKey() throws Exception {
+        final PuzzleGenerator generator = new PuzzleGenerator(random);
+        for (int n = 0; n < 50; n++) {
+            final int[] puzzle = generator.generate();
+            final CanonicalForm form = canonicalizer.canonicalize(puzzle);
+            for (int t = 0; t < 5; t++) {
+                final int[] equivalent = randomSymmetry(puzzle);
+                final CanonicalForm other = canonicalizer.canonicalize(equivalent);
+                assertThat(other.getKey(), is(form.getKey()));
+                assertThat(other.getGrid(), is(form.getGrid()));
+            }
+        }
+    }
+
+    @Test
+    public void transformMapsBothWays() throws Exception {
+        final int[] puzzle = SudokuSolverTest.digitsOf(FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD));
+        final int[] solution = puzzle.clone();
+        new SudokuSolver().solve(solution);
+
+        final CanonicalForm form = canonicalizer.canonicalize(randomSymmetry(puzzle));
+        final int[] canonicalSolution = form.getGrid();
+        new SudokuSolver().solve(canonicalSolution);
+
+        final CanonicalForm original = canonicalizer.canonicalize(puzzle);
+        assertThat(original.toCanonical(puzzle), is(original.getGrid()));
+        assertThat(original.fromCanonical(original.getGrid()), is(puzzle));
+        assertThat(original.fromCanonical(canonicalSolution), is(solution));
+    }
+
+    @Test
+    public void differentPuzzlesDiffer() throws Exception {
+        final int[] puzzle = SudokuSolverTest.digitsOf(FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD));
+        final int[] other = puzzle.clone();
+        int firstClue = 0;
+        while (other[firstClue] == 0) firstClue++;
+        other[firstClue] = 0;
+        assertThat(canonicalizer.canonicalize(other).getKey().equals(canonicalizer.canonicalize(puzzle).getKey()), is(false));
+    }
+
+    @Test
+    public void symmetricPatternsStopAtCaps() throws Exception {
+        assertThat(canonicalizer.canonicalize(new int[81]).isComplete(), is(false));
+        final int[] puzzle = SudokuSolverTest.digitsOf(FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD));
+        assertThat(canonicalizer.canonicalize(puzzle).isComplete(), is(true));
+        assertThat(canonicalizer.canonicalize(randomSymmetry(puzzle)).isComplete(), is(true));
+    }
+
+    private int[] randomSymmetry(int[] digits) {
+        final int[] rows = randomLinePermutation();
+        final int[] columns = randomLinePermutation();
+        final int[] labels = new int[10];
+        final int[] shuffled = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        shuffle(shuffled);
+        for (int d = 1; d <= 9; d++)
+            labels[d] = shuffled[d - 1];
+        final boolean transpose = random.nextBoolean();
+
+        final int[] result = new int[81];
+        for (int r = 0; r < 9; r++)
+            for (int c = 0; c < 9; c++) {
+                final int source = transpose ? columns[c] * 9 + rows[r] : rows[r] * 9 + columns[c];
+                result[r * 9 + c] = labels[digits[source]];
+            }
+        return result;
+    }
+
+    private int[] randomLinePermutation() {
+        final int[] bands = {0, 1, 2};
+        shuffle(bands);
+        final int[] lines = new int[9];
+        for (int b = 0; b < 3; b++) {
+            final int[] within = {0, 1, 2};
+            shuffle(within);
+            for (int i = 0; i < 3; i++)
+                lines[b * 3 + i] = bands[b] * 3 + within[i];
+        }
+        return lines;
+    }
+
+    private void shuffle(int[] array) {
+        for (int i = array.length - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int t = array[i];
+            array[i] = array[j];
+            array[j] = t;
+        }
+    }
+}
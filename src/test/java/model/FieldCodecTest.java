@@ -0,0 +1,111 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class FieldCodecTest {
+    // The default field as encoded by the original 4-bytes-per-cell format
+    private static final String LEGACY_DEFAULT_FIELD = "AAAAAAAAAAAwABAAMABwADAAkAAAAAAAMAAgAAAAAAAwAGAAMABwADAAMAAAAAAAMAAg" +
+            "ADAAEAAAAAAAMACQADAAgAAAAAAAMACQADAAIAAwAGAAAAAAADAAUAAwAEAAMAAwAAAAAAAAAAAAAAAAADAAcAAwAIAAMAAQAAAAAA" +
+            "AwAFAAAAAAADAAkAAAAAAAMAAwADAAEAAAAAAAMABAADAAgAAwAJAAAAAAAAAAAAAwAHAAMABQADAAQAAAAAAAAAAAAAAAAAAwAHAA" +
+            "MAAQADAAIAAwAIAAMAAQAAAAAAAwAHAAAAAAADAAYAAwACAAAAAAADAAUAAAAAAAAAAAAAAAAAAwAFAAMACQADAAcAAwABAAAAAAAD" +
+            "AAMAAAAAAAMAAgADAAYAAwADAAMABQAAAAAAAAAAAAMABwAAAAAAAAAAAA";
+
+    private SudokuField field;
+
+    @Before
+    public void setUp() throws Exception {
+        field = FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD);
+    }
+
+    @Test
+    public void legacyCookieStillDecodes() throws Exception {
+        assertThat(LEGACY_DEFAULT_FIELD.length(), is(432));
+        assertTrue(FieldLoader.deserializeField(LEGACY_DEFAULT_FIELD).valuesEqual(field));
+    }
+
+    @Test
+    public void hintedFieldRoundTrip() throws Exception {
+        field.activateHints();
+        field.setCellValue("0", "8", 3);
+        field.setCellValue("1", "4", 2);
+        field.generateHints(HintMode.SMART);
+        assertRoundTrip(field, FieldLoader.deserializeField(field.serialize()), true);
+
+        SudokuField compact = FieldLoader.deserializeField(field.serialize(HintMode.SMART));
+        assertRoundTrip(field, compact, false);
+        compact.generateHints(HintMode.SMART);
+        assertRoundTrip(field, compact, true);
+    }
+
+    @Test
+    public void mixedHintBitsRoundTrip() throws Exception {
+        field.activateHints();
+        field.setCellValue("0", "8", 3);
+        field.reset();          // Clears the "hint on" bit of every cell but the hardcoded ones
+        assertRoundTrip(field, FieldLoader.deserializeField(field.serialize(HintMode.OFF)), false);
+    }
+
+    @Test
+    public void randomValuesRoundTrip() throws Exception {
+        final Random random = new Random(4);
+        for (int round = 0; round < 200; round++) {
+            int[] values = new int[81];
+            for (int i = 0; i < 81; i++) {
+                switch (random.nextInt(3)) {
+                    case 0:
+                        values[i] = random.nextInt(SudokuCell.HINT_MASK + 1);
+                        break;
+                    case 1:
+                        values[i] = SudokuCell.hardcodedValue(1 + random.nextInt(9));
+                        break;
+                    default:
+                        values[i] = SudokuCell.DEFINITE | (1 + random.nextInt(9)) << 12 | (1 + random.nextInt(4)) << 16
+                                | random.nextInt(SudokuCell.HINT_MASK + 1);
+                }
+                if (round % 2 == 0) values[i] |= SudokuCell.HINT_ON;
+                else if (random.nextBoolean()) values[i] |= SudokuCell.HINT_ON;
+            }
+            SudokuField original = new SudokuField(values);
+            assertRoundTrip(original, FieldLoader.deserializeField(original.serialize()), true);
+            assertRoundTrip(original, FieldLoader.deserializeField(original.serialize(HintMode.ON)), false);
+        }
+    }
+
+    @Test
+    public void digitsOutOfRangeRejected() throws Exception {
+        assertRejected("Agg5znOc5znf");     // Runs of empty cells, then a hardcoded 15 in cell 80
+        assertRejected("AgBA");             // A hardcoded 0 in cell 0
+        assertRejected("AgCA");             // A definite 0 in cell 0
+    }
+
+    private static void assertRejected(String encoded) {
+        try {
+            FieldCodec.decode(encoded);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Invalid digit"));
+            return;
+        }
+        throw new AssertionError(encoded + " decoded");
+    }
+
+    @Test
+    public void compactCookieIsSeveralTimesShorter() throws Exception {
+        field.activateHints();
+        field.generateHints(HintMode.SMART);
+        assertTrue(field.serialize(HintMode.SMART).length() * 4 < LEGACY_DEFAULT_FIELD.length());
+        assertTrue(field.serialize(HintMode.OFF).length() * 4 < LEGACY_DEFAULT_FIELD.length());
+    }
+
+    private static void assertRoundTrip(SudokuField expected, SudokuField actual, boolean withCandidates) {
+        final int mask = ~SudokuCell.HINT_INCONSISTENCE & ~(withCandidates ? 0 : SudokuCell.HINT_MASK);
+        for (int i = 0; i < 81; i++)
+            assertThat("Cell " + i, actual.cells[i] & mask, is(expected.cells[i] & mask));
+    }
+}
@@ -0,0 +1,51 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class HintCacheTest {
+    @Test
+    public void cachedHintsSameAsGenerated() throws Exception {
+        final HintCache cache = new HintCache(100, 30);
+        final PuzzleGenerator generator = new PuzzleGenerator(new Random(3));
+        for (int n = 0; n < 20; n++) {
+            final int[] puzzle = generator.generate();
+            for (HintMode mode : HintMode.values()) {
+                final SudokuField expected = FieldLoader.getFieldFromDigits(puzzle);
+                expected.activateHints();
+                expected.generateHints(mode);
+
+                for (int pass = 0; pass < 2; pass++) {      // A miss, then a hit
+                    final SudokuField field = FieldLoader.getFieldFromDigits(puzzle);
+                    field.activateHints();
+                    cache.generateHints(field, mode);
+                    assertThat(field.cells, is(expected.cells));
+                }
+            }
+        }
+        assertThat(cache.getHits(), is(20L * 2));
+        assertThat(cache.getMisses(), is(20L * 2));
+    }
+
+    @Test
+    public void digitChangeMisses() throws Exception {
+        final HintCache cache = new HintCache(100, 30);
+        final SudokuField field = FieldLoader.getDefaultField();
+        field.activateHints();
+        cache.generateHints(field, HintMode.SMART);
+
+        int empty = 0;
+        while (SudokuCell.isDefinite(field.cells[empty])) empty++;
+        field.setCellValue(String.valueOf(empty), "5", 1);
+        final SudokuField expected = field.copy();
+        expected.generateHints(HintMode.SMART);
+        cache.generateHints(field, HintMode.SMART);
+
+        assertThat(cache.getMisses(), is(2L));
+        assertThat(field.cells, is(expected.cells));
+    }
+}
@@ -0,0 +1,121 @@
+package model;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static model.SudokuCell.*;
+import static model.util.Combinatorics.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the incrementally maintained hints with a full recompute done the way the field
+ * originally did it: walking all peers of every cell and re-sweeping all blocks until nothing changes.
+ */
+public class HintDifferentialTest {
+    private static final int MOVES = 400;
+
+    @Test
+    public void defaultField() throws Exception {
+        playRandomGame(FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD), 1);
+    }
+
+    @Test
+    public void veryHardField() throws Exception {
+        playRandomGame(FieldLoader.getFieldFromText(Files.readAllLines(Paths.get("src/main/resources/data/very_hard_field.txt"))), 2);
+    }
+
+    @Test
+    public void emptyField() throws Exception {
+        playRandomGame(FieldLoader.getEmptyField(), 3);
+    }
+
+    private static void playRandomGame(SudokuField field, long seed) {
+        final Random random = new Random(seed);
+        final SudokuField reference = FieldLoader.deserializeField(field.serialize());
+        field.activateHints();
+        reference.activateHints();
+
+        for (int move = 0; move < MOVES; move++) {
+            final String cell = String.valueOf(random.nextInt(81));
+            if (isHardcoded(field.cells[Integer.parseInt(cell)])) continue;
+            final String value = String.valueOf(random.nextInt(10));
+            field.setCellValue(cell, value, 1);
+            reference.setCellValue(cell, value, 1);
+            if (move % 97 == 96) {
+                field.reset();
+                reference.reset();
+            }
+
+            final HintMode mode = random.nextBoolean() ? HintMode.ON : HintMode.SMART;
+            field.generateHints(mode);
+            generateReferenceHints(reference, mode);
+            for (int i = 0; i < 81; i++)
+                assertEquals("Move " + move + ", " + mode + ", cell " + i, reference.cells[i], field.cells[i]);
+        }
+    }
+
+    private static void generateReferenceHints(SudokuField field, HintMode mode) {
+        final int[] cells = field.cells;
+        for (int i = 0; i < 81; i++)
+            cells[i] &= ~HINT_INCONSISTENCE;
+
+        final int[] hinted = new int[81];
+        for (int index = 0; index < 81; index++) {
+            int used = 0;
+            for (int[] block : SudokuConstants.AFFECTING_CELL_TABLE[index])
+                for (int j : block)
+                    used |= hintBit(getDefValue(cells[j]));
+            hinted[index] = (cells[index] | HINT_MASK) & ~used;
+        }
+        System.arraycopy(hinted, 0, cells, 0, 81);
+        if (mode == HintMode.SMART)
+            sweepNakedSubsets(cells);
+    }
+
+    private static void sweepNakedSubsets(int[] cells) {
+        final List<Integer> indefinite = new ArrayList<>(9);
+        final List<Integer> previousValues = new ArrayList<>(9);
+
+        for (boolean updated = true; updated; ) {
+            updated = false;
+            blockLoop:
+            for (int[] blockIndex : SudokuConstants.SUDOKU_BLOCK_INDEX) {
+                indefinite.clear();
+                previousValues.clear();
+                for (int index : blockIndex)
+                    if (!isDefinite(cells[index])) {
+                        indefinite.add(index);
+                        previousValues.add(cells[index]);
+                    }
+
+                int numIndefs = indefinite.size();
+                for (int groupSize = 1; groupSize < numIndefs; groupSize++) {
+                    final int[][] combinations = COMBINATIONS[numIndefs][groupSize];
+                    final int[][] complements = ANTI_COMBINATIONS[numIndefs][groupSize];
+                    for (int c = 0; c < combinations.length; c++) {
+                        final int combined = IntStream.of(combinations[c])
+                                .map(i -> hintValue(cells[indefinite.get(i)]))
+                                .reduce(0, (x, y) -> x | y);
+                        int nSet = BIT_COUNT[combined];
+                        if (nSet < groupSize) {
+                            for (int i : blockIndex)
+                                cells[i] |= HINT_INCONSISTENCE;
+                            continue blockLoop;
+                        }
+                        if (nSet == groupSize)
+                            for (int i : complements[c])
+                                cells[indefinite.get(i)] &= ~combined;
+                    }
+                }
+                for (int i = 0; i < numIndefs; i++)
+                    updated |= cells[indefinite.get(i)] != previousValues.get(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package model;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static model.SudokuCell.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertTrue;
+
+public class HintPipelineTest {
+    @Test
+    public void advancedHintsKeepSolutionAndRefineSmartOnes() throws Exception {
+        final List<int[]> puzzles = new ArrayList<>();
+        puzzles.add(SudokuSolverTest.digitsOf(FieldLoader.getFieldFromText(
+                Files.readAllLines(Paths.get("src/main/resources/data/very_hard_field.txt")))));
+        final PuzzleGenerator generator = new PuzzleGenerator(new Random(7));
+        for (int i = 0; i < 100; i++)
+            puzzles.add(generator.generate());
+
+        final SudokuSolver solver = new SudokuSolver();
+        final long[] eliminationsBefore = eliminations();
+        int refined = 0;
+        for (int[] puzzle : puzzles) {
+            final int[] solution = puzzle.clone();
+            assertTrue(solver.solve(solution));
+
+            final SudokuField smart = FieldLoader.getFieldFromDigits(puzzle);
+            final SudokuField advanced = FieldLoader.getFieldFromDigits(puzzle);
+            smart.generateHints(HintMode.SMART);
+            advanced.generateHints(HintMode.ADVANCED);
+
+            for (int i = 0; i < 81; i++) {
+                if (isDefinite(advanced.cells[i])) continue;
+                final int smartHints = hintValue(smart.cells[i]);
+                final int advancedHints = hintValue(advanced.cells[i]);
+                assertThat("Solution digit kept in cell " + i, advancedHints & hintBit(solution[i]), is(hintBit(solution[i])));
+                assertThat("Subset of SMART hints in cell " + i, advancedHints & ~smartHints, is(0));
+                if (advancedHints != smartHints) refined++;
+            }
+        }
+
+        assertTrue(refined > 0);
+        final long[] eliminationsAfter = eliminations();
+        for (int t = 1; t < eliminationsAfter.length; t++)          // All but SMART's
+            assertTrue(HintPipeline.techniques().get(t).getName() + " eliminated nothing",
+                    eliminationsAfter[t] > eliminationsBefore[t]);
+    }
+
+    private static long[] eliminations() {
+        return HintPipeline.techniques().stream().mapToLong(HintTechnique::getEliminations).toArray();
+    }
+}
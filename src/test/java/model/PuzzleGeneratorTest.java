@@ -0,0 +1,37 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertTrue;
+
+public class PuzzleGeneratorTest {
+    @Test
+    public void generatesMinimalPuzzlesWithUniqueSolution() throws Exception {
+        final PuzzleGenerator generator = new PuzzleGenerator(new Random(42));
+        final SudokuSolver solver = new SudokuSolver();
+
+        for (int n = 0; n < 5; n++) {
+            final int[] puzzle = generator.generate();
+            assertThat(solver.countSolutions(puzzle, 2), is(1));
+            for (int i = 0; i < 81; i++) {
+                if (puzzle[i] == 0) continue;
+                final int[] fewerClues = puzzle.clone();
+                fewerClues[i] = 0;
+                assertThat(solver.countSolutions(fewerClues, 2), is(2));
+            }
+        }
+    }
+
+    @Test
+    public void ratesByGuesses() throws Exception {
+        final PuzzleGenerator generator = new PuzzleGenerator(new Random(42));
+        final int[] solved = SudokuSolverTest.digitsOf(FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD_SOLVED));
+        assertThat(generator.rate(solved), is(Difficulty.EASY));
+        assertThat(generator.rate(new int[81]), is(Difficulty.HARD));
+        assertTrue(Difficulty.rate(3) == Difficulty.MEDIUM && Difficulty.of("nonsense") == Difficulty.MEDIUM);
+    }
+}
@@ -23,7 +23,7 @@ public class SudokuFieldTest {
             "--5971-3-",
             "2635--7--"};
 
-    private static final String[] DEFAULT_FIELD_SOLVED = {
+    static final String[] DEFAULT_FIELD_SOLVED = {
             "851793246",
             "734216985",
             "926854371",
@@ -42,8 +42,8 @@ public class SudokuFieldTest {
 
     @Test
     public void fieldCreation() throws Exception {
-        assertThat(field.cells[29].getDefValue(), is(8));
-        assertThat(field.cells[66].getDefValue(), is(9));
+        assertThat(SudokuCell.getDefValue(field.cells[29]), is(8));
+        assertThat(SudokuCell.getDefValue(field.cells[66]), is(9));
     }
 
     @Test
@@ -68,4 +68,21 @@ public class SudokuFieldTest {
         SudokuField fieldSolvedBad = FieldLoader.getFieldFromLines(solvedBad);
         assertFalse(fieldSolvedBad.isValid());
     }
+
+    @Test
+    public void wireFormat() throws Exception {
+        field.activateHints();
+        field.setCellValue("0", "8", 2);
+        field.generateHints(HintMode.ON);
+        final byte[] wire = field.toWireFormat();
+        assertThat(wire.length, is(243));
+
+        assertThat(wireValue(wire, 0) & ~0x1FF, is(8 << 11 | 2 << 15 | 0x200));        // Entered 8 in color 2
+        assertThat(wireValue(wire, 2) & ~0x1FF, is(1 << 11 | 1 << 19 | 0x200));        // Hardcoded 1
+        assertThat(wireValue(wire, 1), is(0x200 | 1 << 4));                            // Empty, only 5 left
+    }
+
+    private static int wireValue(byte[] wire, int index) {
+        return (wire[index * 3] & 0xFF) << 16 | (wire[index * 3 + 1] & 0xFF) << 8 | wire[index * 3 + 2] & 0xFF;
+    }
 }
@@ -0,0 +1,115 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+public class SudokuSolverTest {
+    private SudokuSolver solver;
+
+    @Before
+    public void setUp() throws Exception {
+        solver = new SudokuSolver();
+    }
+
+    static int[] digitsOf(SudokuField field) {
+        int[] digits = new int[81];
+        for (int i = 0; i < 81; i++)
+            digits[i] = SudokuCell.getDefValue(field.cells[i]);
+        return digits;
+    }
+
+    @Test
+    public void solvesDefaultField() throws Exception {
+        int[] digits = digitsOf(FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD));
+        assertTrue(solver.solve(digits));
+        assertThat(digits, is(digitsOf(FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD_SOLVED))));
+    }
+
+    @Test
+    public void solvesVeryHardField() throws Exception {
+        SudokuField field = FieldLoader.getFieldFromText(Files.readAllLines(Paths.get("src/main/resources/data/very_hard_field.txt")));
+        int[] clues = digitsOf(field);
+        int[] digits = clues.clone();
+        assertTrue(solver.solve(digits));
+
+        for (int i = 0; i < 81; i++)
+            if (clues[i] != 0) assertThat(digits[i], is(clues[i]));
+        SudokuField solved = new SudokuField(new int[81]);
+        for (int i = 0; i < 81; i++)
+            solved.cells[i] = SudokuCell.setDefiniteValue(0, digits[i]);
+        assertTrue(solved.isFilled());
+        assertTrue(solved.isValid());
+    }
+
+    @Test
+    public void rejectsRepeatedClue() throws Exception {
+        int[] digits = new int[81];
+        digits[0] = 5;
+        digits[80] = 5;
+        assertTrue(solver.solve(digits.clone()));
+
+        digits[8] = 5;
+        assertFalse(solver.solve(digits));
+    }
+
+    @Test
+    public void countsSolutionsUpToLimit() throws Exception {
+        int[] digits = digitsOf(FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD));
+        int[] clues = digits.clone();
+        assertThat(solver.countSolutions(digits, 2), is(1));
+        assertThat(digits, is(clues));
+
+        assertThat(solver.countSolutions(new int[81], 2), is(2));
+        assertThat(solver.countSolutions(new int[81], 5), is(5));
+    }
+
+    @Test
+    public void givesUpAfterNodeBudget() throws Exception {
+        assertThat(solver.countSolutions(new int[81], 2, 10), is(-1));
+        assertThat(solver.countSolutions(new int[81], 2, 1000), is(2));
+    }
+
+    @Test
+    public void fieldReportsSolutionCount() throws Exception {
+        SudokuField field = FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD);
+        assertThat(field.countSolutions(1000), is(SolutionCount.UNIQUE));
+        assertThat(FieldLoader.getEmptyField().countSolutions(1000), is(SolutionCount.MULTIPLE));
+        assertThat(FieldLoader.getEmptyField().countSolutions(10), is(SolutionCount.UNDETERMINED));
+
+        int[] repeated = new int[81];
+        repeated[0] = repeated[1] = 5;
+        assertThat(FieldLoader.getFieldFromDigits(repeated).countSolutions(1000), is(SolutionCount.NONE));
+    }
+
+    @Test
+    public void conflictingClues() throws Exception {
+        assertFalse(SolutionCount.hasConflicts(digitsOf(FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD))));
+        assertFalse(SolutionCount.hasConflicts(new int[81]));
+
+        int[] sameRow = new int[81];
+        sameRow[0] = sameRow[8] = 5;
+        assertTrue(SolutionCount.hasConflicts(sameRow));
+        int[] sameColumn = new int[81];
+        sameColumn[4] = sameColumn[76] = 9;
+        assertTrue(SolutionCount.hasConflicts(sameColumn));
+        int[] sameBox = new int[81];
+        sameBox[30] = sameBox[50] = 1;
+        assertTrue(SolutionCount.hasConflicts(sameBox));
+    }
+
+    @Test
+    public void solveFieldKeepsHardcodedCells() throws Exception {
+        SudokuField field = FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD);
+        field.setCellValue("0", "1", 2);
+        assertTrue(field.solve(3));
+        assertTrue(field.isFilled());
+        assertTrue(field.isValid());
+        assertTrue(field.valuesEqual(FieldLoader.getFieldFromLines(SudokuFieldTest.DEFAULT_FIELD_SOLVED)));
+    }
+}
@@ -52,4 +52,13 @@ public class CombinatoricsTest {
         assertThat(BIT_COUNT[0b101], is(2));
         assertThat(BIT_COUNT[0b1110101], is(5));
     }
+
+    @Test
+    public void subsetMasks() throws Exception {
+        assertThat(SUBSET_MASKS[5][3].length, is(COMBINATIONS[5][3].length));
+        assertThat(SUBSET_MASKS[5][3][0], is(0b00111));
+        assertThat(SUBSET_MASKS[5][3][1], is(0b01011));
+        assertThat(SUBSET_MASKS[5][3][9], is(0b11100));
+        assertThat(SUBSET_MASKS[9][9][0], is(0x1FF));
+    }
 }
@@ -0,0 +1,108 @@
+package template;
+
+import model.FieldLoader;
+import model.HintMode;
+import model.SudokuField;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class TemplateProcessorTest {
+    @Test
+    public void sameAsRegexReplacement() throws Exception {
+        final SudokuField field = FieldLoader.getDefaultField();
+        field.activateHints();
+        field.generateHints(HintMode.SMART);
+
+        for (HintMode mode : HintMode.values())
+            for (int color = 1; color <= 4; color++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                TemplateProcessor.with(field, mode, color).writeTo(out);
+                assertThat(out.toString(StandardCharsets.UTF_8.name()), is(replaceWithRegex(field, mode, color, "")));
+            }
+    }
+
+    @Test
+    public void replacesStatusMarker() throws Exception {
+        final SudokuField field = FieldLoader.getDefaultField();
+        final String status = "This field has a unique solution";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TemplateProcessor.with(field, HintMode.OFF, 1).withStatus(status).writeTo(out);
+        assertThat(out.toString(StandardCharsets.UTF_8.name()), is(replaceWithRegex(field, HintMode.OFF, 1, status)));
+    }
+
+    @Test
+    public void compressedPageInflatesToSamePage() throws Exception {
+        final SudokuField field = FieldLoader.getDefaultField();
+        field.activateHints();
+        field.generateHints(HintMode.SMART);
+
+        for (int level : new int[]{1, 6, 9}) {
+            TemplateProcessor.setCompressionLevel(level);
+            for (HintMode mode : HintMode.values()) {
+                ByteArrayOutputStream plain = new ByteArrayOutputStream();
+                TemplateProcessor.with(field, mode, 3).withStatus("Status").writeTo(plain);
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                TemplateProcessor.with(field, mode, 3).withStatus("Status").withCompression(0).writeTo(compressed);
+
+                final byte[] inflated = IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())));
+                assertThat(inflated, is(plain.toByteArray()));
+                assertThat(compressed.size() < plain.size() / 3, is(true));
+            }
+        }
+        TemplateProcessor.setCompressionLevel(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    @Test
+    public void smallPageNotCompressed() throws Exception {
+        final SudokuField field = FieldLoader.getDefaultField();
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        TemplateProcessor.with(field, HintMode.OFF, 1).writeTo(plain);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TemplateProcessor.with(field, HintMode.OFF, 1).withCompression(plain.size() + 1).writeTo(out);
+        assertThat(out.toByteArray(), is(plain.toByteArray()));
+    }
+
+    @Test
+    public void etagFollowsPageInputs() throws Exception {
+        final SudokuField field = FieldLoader.getEmptyField();
+        final String state = field.serialize(HintMode.ON);
+        final String etag = TemplateProcessor.etag(state, HintMode.ON, 1);
+
+        assertThat(TemplateProcessor.etag(state, HintMode.ON, 1), is(etag));
+        assertThat(TemplateProcessor.etag(state, HintMode.SMART, 1).equals(etag), is(false));
+        assertThat(TemplateProcessor.etag(state, HintMode.ON, 2).equals(etag), is(false));
+
+        field.setCellValue("0", "5", 1);
+        assertThat(TemplateProcessor.etag(field.serialize(HintMode.ON), HintMode.ON, 1).equals(etag), is(false));
+    }
+
+    // How the page used to be produced
+    private static String replaceWithRegex(SudokuField field, HintMode mode, int color, String status) throws Exception {
+        final String template = IOUtils.toString(Objects.requireNonNull(TemplateProcessorTest.class.getClassLoader()
+                .getResourceAsStream("WEB-INF/main.html")), StandardCharsets.UTF_8);
+        StringBuilder board = new StringBuilder();
+        field.appendHtml(board);
+
+        String page = Pattern.compile("<tbody>.*</tbody>", Pattern.DOTALL).matcher(template).replaceFirst(board.toString());
+        page = page.replace("<!--status-->", status);
+        page = checkRadioButton(page, "hint", mode.name());
+        return checkRadioButton(page, "clr", String.valueOf(color));
+    }
+
+    private static String checkRadioButton(String html, String group, String value) {
+        String regex = "(type=\"radio\"\\s+name=\"" + group + "\"\\s+value=\"" + value + "\")";
+        return Pattern.compile(regex).matcher(html).replaceAll("$1 checked");
+    }
+}